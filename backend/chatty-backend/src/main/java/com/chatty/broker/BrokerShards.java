@@ -0,0 +1,67 @@
+package com.chatty.broker;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of single-threaded executors. Tasks with the same key always run on the same
+ * shard, in submission order, while different keys spread across cores.
+ */
+public class BrokerShards {
+
+    private final ThreadPoolExecutor[] shards;
+
+    public BrokerShards(int shardCount) {
+        shards = new ThreadPoolExecutor[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String threadName = "broker-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, threadName));
+        }
+    }
+
+    public void dispatch(Object key, Runnable task) {
+        shards[shardFor(key)].execute(task);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Number of tasks waiting in each shard's queue
+     */
+    public int[] getQueueDepths() {
+        int[] depths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            depths[i] = shards[i].getQueue().size();
+        }
+        return depths;
+    }
+
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (ExecutorService shard : shards) {
+            try {
+                shard.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private int shardFor(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        // Spread the hash so destinations differing only in their last characters still scatter
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, shards.length);
+    }
+}
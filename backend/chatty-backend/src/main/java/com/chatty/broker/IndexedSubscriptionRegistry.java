@@ -0,0 +1,116 @@
+package com.chatty.broker;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Subscription registry for the simple broker that indexes subscriptions by exact destination.
+ * <p>
+ * The default registry matches a destination against every subscription once its lookup cache
+ * (1024 destinations) is exceeded, which with one /queue/messages/{userId} destination per user
+ * makes every send linear in the number of connected users. Here a send to an exact destination
+ * is a single hash lookup. Pattern subscriptions (containing *, ? or {) are rare and kept in a
+ * separate list that is still matched linearly. STOMP selector headers are not supported.
+ */
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    // destination -> sessionId -> subscriptionIds
+    private final Map<String, Map<String, Set<String>>> exactSubscriptions = new ConcurrentHashMap<>();
+
+    private final CopyOnWriteArrayList<PatternSubscription> patternSubscriptions = new CopyOnWriteArrayList<>();
+
+    // sessionId -> subscriptionId -> destination, used to clean up on unsubscribe/disconnect
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        if (pathMatcher.isPattern(destination)) {
+            patternSubscriptions.add(new PatternSubscription(sessionId, subscriptionId, destination));
+            return;
+        }
+        exactSubscriptions.compute(destination, (dest, bySession) -> {
+            Map<String, Set<String>> subscribers = bySession != null ? bySession : new ConcurrentHashMap<>();
+            subscribers.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(subscriptionId);
+            return subscribers;
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> sessionSubscriptions = sessions.get(sessionId);
+        if (sessionSubscriptions == null) {
+            return;
+        }
+        String destination = sessionSubscriptions.remove(subscriptionId);
+        if (destination != null) {
+            remove(sessionId, subscriptionId, destination);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> sessionSubscriptions = sessions.remove(sessionId);
+        if (sessionSubscriptions == null) {
+            return;
+        }
+        sessionSubscriptions.forEach((subscriptionId, destination) -> remove(sessionId, subscriptionId, destination));
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        Map<String, Set<String>> subscribers = exactSubscriptions.get(destination);
+        if (subscribers != null) {
+            subscribers.forEach((sessionId, subscriptionIds) -> result.addAll(sessionId, subscriptionIds.stream().toList()));
+        }
+        for (PatternSubscription subscription : patternSubscriptions) {
+            if (pathMatcher.match(subscription.pattern(), destination)) {
+                result.add(subscription.sessionId(), subscription.subscriptionId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of distinct exact destinations with at least one subscriber
+     */
+    public int getDestinationCount() {
+        return exactSubscriptions.size();
+    }
+
+    /**
+     * Total number of active subscriptions
+     */
+    public int getSubscriptionCount() {
+        return sessions.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void remove(String sessionId, String subscriptionId, String destination) {
+        if (pathMatcher.isPattern(destination)) {
+            patternSubscriptions.remove(new PatternSubscription(sessionId, subscriptionId, destination));
+            return;
+        }
+        exactSubscriptions.computeIfPresent(destination, (dest, bySession) -> {
+            bySession.computeIfPresent(sessionId, (id, subscriptionIds) -> {
+                subscriptionIds.remove(subscriptionId);
+                return subscriptionIds.isEmpty() ? null : subscriptionIds;
+            });
+            return bySession.isEmpty() ? null : bySession;
+        });
+    }
+
+    private record PatternSubscription(String sessionId, String subscriptionId, String pattern) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.chatty.broker;
+
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor for the broker channel that routes each message to a {@link BrokerShards} shard
+ * chosen by destination (falling back to session id for destination-less frames).
+ * Messages to one destination are therefore dispatched in order by a single thread, while
+ * different destinations are dispatched in parallel.
+ * <p>
+ * Extends ThreadPoolTaskExecutor only because that is the type the broker channel
+ * registration accepts; the inherited pool is kept at a single idle thread.
+ */
+public class ShardedBrokerChannelExecutor extends ThreadPoolTaskExecutor {
+
+    private final BrokerShards shards;
+
+    public ShardedBrokerChannelExecutor(BrokerShards shards) {
+        this.shards = shards;
+        setCorePoolSize(1);
+        setMaxPoolSize(1);
+        setThreadNamePrefix("broker-channel-");
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof MessageHandlingRunnable messageTask) {
+            shards.dispatch(shardKey(messageTask.getMessage().getHeaders()), task);
+            return;
+        }
+        super.execute(task);
+    }
+
+    private static Object shardKey(MessageHeaders headers) {
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        return destination != null ? destination : SimpMessageHeaderAccessor.getSessionId(headers);
+    }
+}
@@ -0,0 +1,38 @@
+package com.chatty.broker;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor for the client inbound/outbound channels that runs every message on its own virtual thread.
+ * A handler that blocks (JDBC in a @MessageMapping method, a slow socket write) parks a virtual thread
+ * instead of holding one of a small pool of platform threads. Per-session outbound order is kept by
+ * the broker's preservePublishOrder, as with the pooled executor.
+ * <p>
+ * Extends ThreadPoolTaskExecutor only because that is the type the channel registration accepts;
+ * the inherited pool is kept at a single idle thread.
+ */
+public class VirtualThreadChannelExecutor extends ThreadPoolTaskExecutor {
+
+    private final ExecutorService virtualThreads;
+
+    public VirtualThreadChannelExecutor(String threadNamePrefix) {
+        setCorePoolSize(1);
+        setMaxPoolSize(1);
+        setThreadNamePrefix(threadNamePrefix);
+        virtualThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        virtualThreads.execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        virtualThreads.shutdown();
+        super.shutdown();
+    }
+}
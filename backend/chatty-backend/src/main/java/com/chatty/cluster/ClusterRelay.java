@@ -0,0 +1,28 @@
+package com.chatty.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport that carries {@link RelayFrame}s between backend nodes
+ */
+public interface ClusterRelay {
+
+    String getNodeId();
+
+    /**
+     * Start receiving frames addressed to this node.
+     *
+     * @param receiver    called for every frame addressed to this node
+     * @param onConnected called once connected, and again after every reconnect
+     */
+    void start(Consumer<RelayFrame> receiver, Runnable onConnected);
+
+    /**
+     * Send a frame to the other nodes. Other failures are logged by the relay.
+     *
+     * @return false if the frame is larger than the transport can carry, in which case it was not sent
+     */
+    boolean publish(RelayFrame frame);
+
+    void stop();
+}
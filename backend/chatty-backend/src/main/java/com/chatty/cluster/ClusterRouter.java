@@ -0,0 +1,350 @@
+package com.chatty.cluster;
+
+import com.chatty.entity.Message;
+import com.chatty.event.ContactEdgeEvent;
+import com.chatty.event.GroupMembershipChangedEvent;
+import com.chatty.event.PresenceChangedEvent;
+import com.chatty.metrics.MessageMetrics;
+import com.chatty.presence.PresenceRegistry;
+import com.chatty.repository.MessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Presence-aware delivery of per-user messages across backend nodes.
+ * <p>
+ * Local presence comes from the {@link PresenceRegistry}; changes are announced to the other
+ * nodes through the {@link ClusterRelay}. A message for a user is sent to the
+ * local broker only if the user is connected here, and relayed only to the nodes that
+ * announced a session for that user. Without a relay every message is delivered locally,
+ * which is the single-node behaviour.
+ * <p>
+ * A message batch too large for the relay is sent as a reference (the message ids) and the
+ * receiving node loads the messages from the database before delivering them.
+ */
+@Service
+public class ClusterRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRouter.class);
+
+    private static final String USER_QUEUE_PREFIX = "/queue/messages/";
+
+    public static final String RECEIPT_QUEUE_PREFIX = "/queue/receipts/";
+
+    public static final String ERROR_QUEUE_PREFIX = "/queue/errors/";
+
+    // Referenced messages may still be in the write-behind queue of the sending node
+    private static final int REFERENCE_LOAD_ATTEMPTS = 5;
+
+    private static final long REFERENCE_RETRY_MS = 200;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private ClusterRelay relay;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    // userId -> remote nodes holding a session for the user
+    private final Map<UUID, Set<String>> remoteUsers = new ConcurrentHashMap<>();
+
+    // Loads referenced messages off the relay's listener thread
+    private ScheduledExecutorService referenceLoader;
+
+    @PostConstruct
+    public void start() {
+        if (relay != null) {
+            referenceLoader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cluster-reference-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            relay.start(this::onFrame, () -> publish(RelayFrame.Type.SYNC, null, null));
+            logger.info("Cluster routing enabled, node id {}", relay.getNodeId());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (relay != null) {
+            publish(RelayFrame.Type.NODE_DOWN, null, null);
+            relay.stop();
+            referenceLoader.shutdownNow();
+        }
+    }
+
+    /**
+     * Deliver a payload to /queue/messages/{userId} on whichever nodes hold the user's sessions
+     */
+    public void deliverToUser(UUID userId, Object payload) {
+        deliverToUsers(List.of(userId), payload);
+    }
+
+    /**
+     * Deliver a payload to another per-user queue, e.g. {@link #RECEIPT_QUEUE_PREFIX}{userId}.
+     * Routed like message deliveries: the user's nodes are the ones holding their message queue sessions.
+     */
+    public void deliverToUser(UUID userId, String queuePrefix, Object payload) {
+        byte[] encoded = encode(payload);
+        if (encoded != null) {
+            deliverEncoded(userId, queuePrefix + userId, encoded);
+        }
+    }
+
+    /**
+     * Deliver the same payload to several users. The payload is serialized once and the
+     * resulting buffer is shared by every local send.
+     */
+    public void deliverToUsers(Collection<UUID> userIds, Object payload) {
+        messageMetrics.fanOut().record(() -> {
+            byte[] encoded = encode(payload);
+            if (encoded == null) {
+                return;
+            }
+            for (UUID userId : userIds) {
+                deliverEncoded(userId, encoded);
+            }
+        });
+    }
+
+    /**
+     * Serialize a payload to JSON once, for callers that deliver it at different times
+     * (see {@link #deliverEncoded(UUID, byte[])})
+     *
+     * @return the encoded payload, or null if it could not be serialized
+     */
+    public byte[] encode(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to encode payload {}", payload.getClass().getSimpleName(), e);
+            messageMetrics.dropped("encode_failed");
+            return null;
+        }
+    }
+
+    /**
+     * Deliver a payload previously produced by {@link #encode(Object)}
+     */
+    public void deliverEncoded(UUID userId, byte[] encoded) {
+        deliverEncoded(userId, USER_QUEUE_PREFIX + userId, encoded);
+    }
+
+    private void deliverEncoded(UUID userId, String destination, byte[] encoded) {
+        // Receipts and other per-user queues are not counted as message deliveries
+        boolean messageQueue = destination.startsWith(USER_QUEUE_PREFIX);
+        boolean local = presenceRegistry.isOnlineLocally(userId);
+        // Single node: still send, a silent session past the presence expiry can be subscribed
+        if (relay == null || local) {
+            sendLocally(destination, encoded);
+            if (messageQueue && local) {
+                messageMetrics.deliveredLocally();
+            }
+        }
+        Set<String> nodes = relay != null ? remoteUsers.get(userId) : null;
+        if (nodes == null || nodes.isEmpty()) {
+            if (messageQueue && !local) {
+                // No session anywhere: the message reaches the user through offline replay
+                messageMetrics.offline();
+            }
+            return;
+        }
+        String json = new String(encoded, StandardCharsets.UTF_8);
+        String messageIds = null;
+        for (String node : nodes) {
+            if (!relay.publish(new RelayFrame(RelayFrame.Type.DELIVER, relay.getNodeId(), node, userId, destination, json))) {
+                if (messageIds == null) {
+                    messageIds = messageQueue ? messageIds(encoded) : "";
+                }
+                if (messageIds.isEmpty() || !relay.publish(new RelayFrame(RelayFrame.Type.DELIVER_REF,
+                        relay.getNodeId(), node, userId, destination, messageIds))) {
+                    logger.warn("Dropping delivery to {} on node {}: exceeds relay frame limit", destination, node);
+                    messageMetrics.dropped("relay_too_large");
+                    continue;
+                }
+            }
+            if (messageQueue) {
+                messageMetrics.relayed();
+            }
+        }
+    }
+
+    /**
+     * Comma separated ids of an encoded message batch, or an empty string if it is not one
+     */
+    private String messageIds(byte[] encoded) {
+        try {
+            JsonNode batch = objectMapper.readTree(encoded);
+            if (!batch.isArray() || batch.isEmpty()) {
+                return "";
+            }
+            StringJoiner ids = new StringJoiner(",");
+            for (JsonNode message : batch) {
+                JsonNode id = message.get("id");
+                if (id == null || !id.isTextual()) {
+                    return "";
+                }
+                ids.add(id.asText());
+            }
+            return ids.toString();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private void deliverReferenced(RelayFrame frame, int attempt) {
+        try {
+            List<UUID> ids = Arrays.stream(frame.payload().split(",")).map(UUID::fromString).toList();
+            Map<UUID, Message> found = new HashMap<>();
+            messageRepository.findAllById(ids).forEach(message -> found.put(message.getId(), message));
+            if (found.size() < ids.size()) {
+                if (attempt + 1 < REFERENCE_LOAD_ATTEMPTS) {
+                    referenceLoader.schedule(() -> deliverReferenced(frame, attempt + 1),
+                            REFERENCE_RETRY_MS, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                logger.warn("{} of {} referenced messages for {} not found", ids.size() - found.size(),
+                        ids.size(), frame.destination());
+            }
+            List<Message> messages = ids.stream().map(found::get).filter(Objects::nonNull).toList();
+            byte[] encoded = messages.isEmpty() ? null : encode(messages);
+            if (encoded != null) {
+                sendLocally(frame.destination(), encoded);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to deliver referenced messages to {}", frame.destination(), e);
+        }
+    }
+
+    /**
+     * Whether another node announced a session for the user
+     */
+    public boolean isOnlineRemotely(UUID userId) {
+        return remoteUsers.containsKey(userId);
+    }
+
+    @EventListener
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        publish(event.online() ? RelayFrame.Type.ONLINE : RelayFrame.Type.OFFLINE, null, event.userId());
+    }
+
+    /**
+     * Forward contact graph changes made on this node, so every node's ContactGraph stays current
+     */
+    @EventListener
+    public void onContactEdge(ContactEdgeEvent event) {
+        if (relay != null && !event.remote()) {
+            RelayFrame.Type type = event.added() ? RelayFrame.Type.CONTACT_ADDED : RelayFrame.Type.CONTACT_REMOVED;
+            relay.publish(new RelayFrame(type, relay.getNodeId(), null, event.initiator(), null, event.target().toString()));
+        }
+    }
+
+    /**
+     * Forward group membership changes made on this node, so other nodes drop their cached members
+     */
+    @EventListener
+    public void onGroupMembershipChanged(GroupMembershipChangedEvent event) {
+        if (relay != null && !event.remote()) {
+            relay.publish(new RelayFrame(RelayFrame.Type.GROUP_CHANGED, relay.getNodeId(), null, null, null,
+                    event.groupId().toString()));
+        }
+    }
+
+    private void onFrame(RelayFrame frame) {
+        switch (frame.type()) {
+            case DELIVER -> sendLocally(frame.destination(), frame.payload().getBytes(StandardCharsets.UTF_8));
+            case DELIVER_REF -> referenceLoader.execute(() -> deliverReferenced(frame, 0));
+            case ONLINE -> addRemote(frame.userId(), frame.origin());
+            case OFFLINE -> removeRemote(frame.userId(), frame.origin());
+            case SYNC -> presenceRegistry.getLocalUsers().forEach(userId -> publish(RelayFrame.Type.ONLINE, frame.origin(), userId));
+            case NODE_DOWN -> remoteUsers.keySet().forEach(userId -> removeRemote(userId, frame.origin()));
+            case CONTACT_ADDED, CONTACT_REMOVED -> eventPublisher.publishEvent(new ContactEdgeEvent(frame.userId(),
+                    UUID.fromString(frame.payload()), frame.type() == RelayFrame.Type.CONTACT_ADDED, true));
+            case GROUP_CHANGED -> eventPublisher.publishEvent(
+                    new GroupMembershipChangedEvent(UUID.fromString(frame.payload()), true));
+        }
+    }
+
+    private void sendLocally(String destination, byte[] encoded) {
+        // Already JSON, bypass the message converter and send the bytes as is
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(encoded, accessor.getMessageHeaders()));
+    }
+
+    private void addRemote(UUID userId, String node) {
+        boolean[] firstNode = new boolean[1];
+        remoteUsers.compute(userId, (id, current) -> {
+            Set<String> nodes = current != null ? current : ConcurrentHashMap.newKeySet();
+            firstNode[0] = nodes.isEmpty();
+            nodes.add(node);
+            return nodes;
+        });
+        // Tell local presence subscribers when the user comes online somewhere in the cluster
+        if (firstNode[0] && !presenceRegistry.isOnlineLocally(userId)) {
+            presenceRegistry.broadcast(userId, true);
+        }
+    }
+
+    private void removeRemote(UUID userId, String node) {
+        boolean[] lastNode = new boolean[1];
+        remoteUsers.computeIfPresent(userId, (id, nodes) -> {
+            lastNode[0] = nodes.remove(node) && nodes.isEmpty();
+            return nodes.isEmpty() ? null : nodes;
+        });
+        if (lastNode[0] && !presenceRegistry.isOnlineLocally(userId)) {
+            presenceRegistry.broadcast(userId, false);
+        }
+    }
+
+    private void publish(RelayFrame.Type type, String target, UUID userId) {
+        if (relay != null) {
+            relay.publish(new RelayFrame(type, relay.getNodeId(), target, userId, null, null));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.chatty.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Relay between nodes running in the same JVM, e.g. several application contexts
+ * started by one test. Frames are handed over synchronously on the publishing thread.
+ */
+public class InMemoryClusterRelay implements ClusterRelay {
+
+    private static final Map<String, Consumer<RelayFrame>> NODES = new ConcurrentHashMap<>();
+
+    private final String nodeId;
+
+    public InMemoryClusterRelay(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void start(Consumer<RelayFrame> receiver, Runnable onConnected) {
+        NODES.put(nodeId, receiver);
+        onConnected.run();
+    }
+
+    @Override
+    public boolean publish(RelayFrame frame) {
+        if (frame.target() != null) {
+            Consumer<RelayFrame> receiver = NODES.get(frame.target());
+            if (receiver != null) {
+                receiver.accept(frame);
+            }
+            return true;
+        }
+        NODES.forEach((id, receiver) -> {
+            if (frame.isFor(id)) {
+                receiver.accept(frame);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        NODES.remove(nodeId);
+    }
+}
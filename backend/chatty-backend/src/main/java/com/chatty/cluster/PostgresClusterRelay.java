@@ -0,0 +1,218 @@
+package com.chatty.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Relay over PostgreSQL LISTEN/NOTIFY.
+ * <p>
+ * Uses two dedicated connections outside the Hikari pool: one parked in LISTEN and one for
+ * NOTIFY, so relaying never competes with request handling for pooled connections.
+ * Frames are queued and sent by a publisher thread that owns the NOTIFY connection, so callers
+ * never wait on the database. NOTIFY payloads are limited to 8000 bytes; larger frames are
+ * refused by {@link #publish(RelayFrame)}.
+ */
+public class PostgresClusterRelay implements ClusterRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresClusterRelay.class);
+
+    private static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private final String nodeId;
+
+    private final String url;
+
+    private final String username;
+
+    private final String password;
+
+    private final String channel;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<String> outbound = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    // Only used by the publisher thread
+    private Connection notifyConnection;
+
+    private Thread listener;
+
+    private Thread publisher;
+
+    private volatile boolean running;
+
+    public PostgresClusterRelay(String nodeId, String url, String username, String password,
+                                String channel, ObjectMapper objectMapper) {
+        this.nodeId = nodeId;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void start(Consumer<RelayFrame> receiver, Runnable onConnected) {
+        running = true;
+        publisher = new Thread(this::publishQueued, "cluster-relay-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+        listener = new Thread(() -> listen(receiver, onConnected), "cluster-relay-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public boolean publish(RelayFrame frame) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to encode relay frame {}", frame.type(), e);
+            return true;
+        }
+        if (json.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            return false;
+        }
+        try {
+            if (!outbound.offer(json, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.warn("Dropping {} frame for user {}: relay queue full", frame.type(), frame.userId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        if (publisher != null) {
+            // Let the publisher send what is queued, e.g. the NODE_DOWN frame
+            try {
+                publisher.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            publisher.interrupt();
+        }
+    }
+
+    private void publishQueued() {
+        try {
+            while (running || !outbound.isEmpty()) {
+                String json = outbound.poll(500, TimeUnit.MILLISECONDS);
+                if (json != null) {
+                    sendNotify(json);
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        } finally {
+            closeQuietly(notifyConnection);
+            notifyConnection = null;
+        }
+    }
+
+    private void sendNotify(String json) {
+        // One NOTIFY per transaction: Postgres folds identical payloads sent in the same transaction
+        try {
+            if (notifyConnection == null || notifyConnection.isClosed()) {
+                notifyConnection = DriverManager.getConnection(url, username, password);
+            }
+            try (PreparedStatement statement = notifyConnection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                statement.setString(1, channel);
+                statement.setString(2, json);
+                statement.execute();
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to publish relay frame: {}", e.getMessage());
+            closeQuietly(notifyConnection);
+            notifyConnection = null;
+        }
+    }
+
+    private void listen(Consumer<RelayFrame> receiver, Runnable onConnected) {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                logger.info("Cluster relay node {} listening on channel {}", nodeId, channel);
+                onConnected.run();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter(), receiver);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Cluster relay connection lost, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String json, Consumer<RelayFrame> receiver) {
+        try {
+            RelayFrame frame = objectMapper.readValue(json, RelayFrame.class);
+            if (frame.isFor(nodeId)) {
+                receiver.accept(frame);
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed relay frame: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Failed to handle relay frame", e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // already broken
+        }
+    }
+}
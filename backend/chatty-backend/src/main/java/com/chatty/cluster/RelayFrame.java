@@ -0,0 +1,41 @@
+package com.chatty.cluster;
+
+import java.util.UUID;
+
+/**
+ * Frame exchanged between backend nodes.
+ *
+ * @param type   frame type
+ * @param origin node that published the frame
+ * @param target node the frame is addressed to, or null for all nodes
+ * @param userId user the frame is about (DELIVER*, ONLINE, OFFLINE), or the contact's initiator (CONTACT_*)
+ * @param destination STOMP destination to deliver to (DELIVER* only)
+ * @param payload JSON encoded message payload (DELIVER), comma separated message ids (DELIVER_REF),
+ *                the contact's target (CONTACT_*) or the group id (GROUP_CHANGED)
+ */
+public record RelayFrame(Type type, String origin, String target, UUID userId, String destination, String payload) {
+
+    public enum Type {
+        // Deliver payload to a user's local sessions on the target node
+        DELIVER,
+        // Like DELIVER for a message batch too large for the relay: the target node loads the messages by id
+        DELIVER_REF,
+        // User gained its first session on the origin node
+        ONLINE,
+        // User lost its last session on the origin node
+        OFFLINE,
+        // Origin node (re)joined and asks every node to announce its online users
+        SYNC,
+        // Origin node is shutting down, forget all users routed to it
+        NODE_DOWN,
+        // A contact edge was created or deleted on the origin node
+        CONTACT_ADDED,
+        CONTACT_REMOVED,
+        // A group's members changed on the origin node
+        GROUP_CHANGED
+    }
+
+    public boolean isFor(String nodeId) {
+        return !nodeId.equals(origin) && (target == null || target.equals(nodeId));
+    }
+}
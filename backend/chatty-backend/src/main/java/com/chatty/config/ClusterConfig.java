@@ -0,0 +1,46 @@
+package com.chatty.config;
+
+import com.chatty.cluster.ClusterRelay;
+import com.chatty.cluster.InMemoryClusterRelay;
+import com.chatty.cluster.PostgresClusterRelay;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * Multi-node message fan-out. Select the relay with chatty.cluster.relay:
+ * none (default, single node), memory (nodes in one JVM, for tests) or postgres (LISTEN/NOTIFY).
+ */
+@Configuration
+public class ClusterConfig {
+
+    @Value("${chatty.cluster.node-id:}")
+    private String nodeId;
+
+    @Bean
+    @ConditionalOnProperty(name = "chatty.cluster.relay", havingValue = "memory")
+    public ClusterRelay inMemoryClusterRelay() {
+        return new InMemoryClusterRelay(resolveNodeId());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "chatty.cluster.relay", havingValue = "postgres")
+    public ClusterRelay postgresClusterRelay(DataSourceProperties dataSourceProperties, ObjectMapper objectMapper,
+                                             @Value("${chatty.cluster.channel:chatty_relay}") String channel) {
+        return new PostgresClusterRelay(resolveNodeId(),
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                channel,
+                objectMapper);
+    }
+
+    private String resolveNodeId() {
+        return nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+}
@@ -0,0 +1,50 @@
+package com.chatty.config;
+
+import com.chatty.jdbc.ConcurrencyLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * In virtual-thread mode, put a concurrency limiter in front of the Hikari pool.
+ * Defaults to the pool size, so callers queue on the limiter rather than inside Hikari.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    int limit = environment.getProperty("chatty.jdbc.max-concurrency", Integer.class, 0);
+                    long timeoutMs = environment.getProperty("chatty.jdbc.acquire-timeout-ms", Long.class,
+                            hikari.getConnectionTimeout());
+                    return new ConcurrencyLimitingDataSource(hikari,
+                            limit > 0 ? limit : hikari.getMaximumPoolSize(), timeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder jdbcLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConcurrencyLimitingDataSource limiter) {
+                Gauge.builder("chatty.jdbc.limiter.waiting", limiter, ConcurrencyLimitingDataSource::getWaiting)
+                        .description("Threads waiting for a database connection permit")
+                        .register(registry);
+            }
+        };
+    }
+}
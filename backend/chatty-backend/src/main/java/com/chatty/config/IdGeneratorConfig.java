@@ -0,0 +1,28 @@
+package com.chatty.config;
+
+import com.chatty.id.IdGenerator;
+import com.chatty.id.Ids;
+import com.chatty.id.RandomUuidGenerator;
+import com.chatty.id.UuidV7Generator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    // uuidv7 (time-ordered, default) or random (UUIDv4)
+    @Value("${chatty.ids.generator:uuidv7}")
+    private String generatorType;
+
+    @Bean
+    public IdGenerator idGenerator() {
+        IdGenerator generator = switch (generatorType.trim().toLowerCase()) {
+            case "uuidv7" -> new UuidV7Generator();
+            case "random" -> new RandomUuidGenerator();
+            default -> throw new IllegalArgumentException("Unknown chatty.ids.generator: " + generatorType);
+        };
+        Ids.use(generator);
+        return generator;
+    }
+}
@@ -0,0 +1,47 @@
+package com.chatty.config;
+
+import com.chatty.broker.BrokerShards;
+import com.chatty.broker.IndexedSubscriptionRegistry;
+import com.chatty.presence.PresenceRegistry;
+import com.chatty.service.MessageWriteBehindQueue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges for the WebSocket layer. Hikari pool metrics (hikaricp_connections_*) are registered
+ * by Spring Boot's actuator; everything is scraped from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder webSocketMetrics(PresenceRegistry presenceRegistry,
+                                        IndexedSubscriptionRegistry subscriptionRegistry,
+                                        BrokerShards brokerShards,
+                                        MessageWriteBehindQueue writeBehindQueue) {
+        return registry -> {
+            Gauge.builder("chatty.websocket.sessions", presenceRegistry, PresenceRegistry::getSessionCount)
+                    .description("Open STOMP sessions on this node")
+                    .register(registry);
+            Gauge.builder("chatty.websocket.users", presenceRegistry, r -> r.getLocalUsers().size())
+                    .description("Users with a live session on this node")
+                    .register(registry);
+            Gauge.builder("chatty.broker.subscriptions", subscriptionRegistry,
+                            IndexedSubscriptionRegistry::getSubscriptionCount)
+                    .description("Broker subscriptions")
+                    .register(registry);
+            for (int shard = 0; shard < brokerShards.getShardCount(); shard++) {
+                int index = shard;
+                Gauge.builder("chatty.broker.queue.depth", brokerShards, shards -> shards.getQueueDepths()[index])
+                        .tag("shard", String.valueOf(index))
+                        .description("Tasks waiting in a broker dispatch shard")
+                        .register(registry);
+            }
+            Gauge.builder("chatty.messages.write_behind.depth", writeBehindQueue, MessageWriteBehindQueue::depth)
+                    .description("Messages waiting to be persisted by the write-behind queue")
+                    .register(registry);
+        };
+    }
+}
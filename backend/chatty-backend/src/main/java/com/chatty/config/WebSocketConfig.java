@@ -1,37 +1,185 @@
 package com.chatty.config;
 
+import com.chatty.broker.BrokerShards;
+import com.chatty.broker.IndexedSubscriptionRegistry;
+import com.chatty.broker.ShardedBrokerChannelExecutor;
+import com.chatty.broker.VirtualThreadChannelExecutor;
+import com.chatty.presence.PresenceChannelInterceptor;
+import com.chatty.ratelimit.SendRateLimitInterceptor;
+import com.chatty.wire.DeflatePolicyUpgradeStrategy;
+import com.chatty.wire.FrameCoalescer;
+import com.chatty.wire.WireEncodingInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Number of broker dispatch threads, 0 means one per available processor
+    @Value("${chatty.broker.shards:0}")
+    private int brokerShardCount;
+
+    // STOMP heartbeat interval in ms, both directions; drives presence expiry
+    @Value("${chatty.broker.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    // Run client inbound/outbound channel tasks on virtual threads (same switch as the HTTP connector)
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Slow consumers: a session is closed once this many bytes are queued for it...
+    @Value("${chatty.websocket.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimitBytes;
+
+    // ...or a single send to it has been blocked this long
+    @Value("${chatty.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    // permessage-deflate for clients that offer it; without context takeover every message stands alone
+    @Value("${chatty.websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${chatty.websocket.compression.context-takeover:true}")
+    private boolean compressionContextTakeover;
+
+    @Autowired
+    private PresenceChannelInterceptor presenceChannelInterceptor;
+
+    @Autowired
+    private SendRateLimitInterceptor sendRateLimitInterceptor;
+
+    @Autowired
+    private WireEncodingInterceptor wireEncodingInterceptor;
+
+    @Autowired
+    private FrameCoalescer frameCoalescer;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public BrokerShards brokerShards() {
+        int shards = brokerShardCount > 0 ? brokerShardCount : Runtime.getRuntime().availableProcessors();
+        return new BrokerShards(shards);
+    }
+
+    @Bean
+    public IndexedSubscriptionRegistry indexedSubscriptionRegistry() {
+        return new IndexedSubscriptionRegistry();
+    }
+
+    /**
+     * Swap the simple broker's default subscription registry for the destination-indexed one
+     */
+    @Bean
+    public static BeanPostProcessor subscriptionRegistryInstaller(ObjectProvider<IndexedSubscriptionRegistry> subscriptionRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler brokerHandler) {
+                    brokerHandler.setSubscriptionRegistry(subscriptionRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Enable a simple in-memory broker for destinations prefixed with /topic and /queue
         // /topic is for broadcast (one-to-many)
         // /queue is for point-to-point (one-to-one)
-        registry.enableSimpleBroker("/topic", "/queue");
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+
+        // Dispatch broker messages on shards keyed by destination instead of the caller's thread
+        registry.configureBrokerChannel().taskExecutor(new ShardedBrokerChannelExecutor(brokerShards()));
+
+        // Keep messages to the same session in order through the outbound thread pool
+        registry.setPreservePublishOrder(true);
         
         // Set prefix for destinations handled by @MessageMapping methods
         registry.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(presenceChannelInterceptor, sendRateLimitInterceptor, wireEncodingInterceptor);
+        if (virtualThreads) {
+            registration.taskExecutor(new VirtualThreadChannelExecutor("ws-inbound-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(wireEncodingInterceptor);
+        if (virtualThreads) {
+            registration.taskExecutor(new VirtualThreadChannelExecutor("ws-outbound-"));
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferLimitBytes)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .addDecoratorFactory(frameCoalescer);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register the /ws endpoint for WebSocket connections
         // withSockJS() enables fallback options for browsers that don't support WebSocket
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler(
+                new DeflatePolicyUpgradeStrategy(compressionEnabled, compressionContextTakeover));
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
+                .setHandshakeHandler(handshakeHandler)
                 .withSockJS();
         
         // Also register without SockJS for native WebSocket clients
+        // Only these sessions can negotiate the binary message encoding
         registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(new HandshakeInterceptor() {
+                    @Override
+                    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                        attributes.put(WireEncodingInterceptor.NATIVE_WEBSOCKET_ATTRIBUTE, true);
+                        return true;
+                    }
+
+                    @Override
+                    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                               WebSocketHandler wsHandler, Exception exception) {
+                    }
+                });
     }
 }
-
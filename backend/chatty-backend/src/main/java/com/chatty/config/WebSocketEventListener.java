@@ -1,10 +1,15 @@
 package com.chatty.config;
 
+import com.chatty.metrics.MessageMetrics;
+import com.chatty.presence.PresenceRegistry;
+import com.chatty.service.OfflineReplayService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import org.springframework.web.socket.messaging.SessionSubscribeEvent;
@@ -15,18 +20,34 @@ public class WebSocketEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketEventListener.class);
 
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Autowired
+    private OfflineReplayService offlineReplayService;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         String sessionId = headerAccessor.getSessionId();
-        logger.info("WebSocket session connected: sessionId={}", sessionId);
+        logger.debug("WebSocket session connected: sessionId={}", sessionId);
+        presenceRegistry.onSessionConnected(sessionId);
     }
 
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         String sessionId = headerAccessor.getSessionId();
-        logger.info("WebSocket session disconnected: sessionId={}", sessionId);
+        logger.debug("WebSocket session disconnected: sessionId={}", sessionId);
+        // Closed by the transport for exceeding the send buffer or send time limit
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(event.getCloseStatus())) {
+            logger.info("Disconnected slow consumer: sessionId={}", sessionId);
+            messageMetrics.slowConsumerDisconnected();
+        }
+        presenceRegistry.onSessionClosed(sessionId);
     }
 
     @EventListener
@@ -34,7 +55,9 @@ public class WebSocketEventListener {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         String sessionId = headerAccessor.getSessionId();
         String destination = headerAccessor.getDestination();
-        logger.info("WebSocket subscription: sessionId={}, destination={}", sessionId, destination);
+        logger.debug("WebSocket subscription: sessionId={}, destination={}", sessionId, destination);
+        presenceRegistry.onSubscribe(sessionId, headerAccessor.getSubscriptionId(), destination);
+        offlineReplayService.onSubscribe(sessionId, headerAccessor.getSubscriptionId(), destination);
     }
 
     @EventListener
@@ -42,7 +65,8 @@ public class WebSocketEventListener {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         String sessionId = headerAccessor.getSessionId();
         String subscriptionId = headerAccessor.getSubscriptionId();
-        logger.info("WebSocket unsubscribe: sessionId={}, subscriptionId={}", sessionId, subscriptionId);
+        logger.debug("WebSocket unsubscribe: sessionId={}, subscriptionId={}", sessionId, subscriptionId);
+        presenceRegistry.onUnsubscribe(sessionId, subscriptionId);
     }
 }
 
@@ -2,15 +2,20 @@ package com.chatty.controller;
 
 import com.chatty.dto.ContactDTO;
 import com.chatty.dto.ContactRequestDTO;
+import com.chatty.dto.ContactSuggestionDTO;
 import com.chatty.entity.Contact;
 import com.chatty.entity.ContactRequest;
 import com.chatty.enums.ContactRequestStatus;
 import com.chatty.repository.ContactRepository;
 import com.chatty.service.ContactService;
+import com.chatty.service.ContactSuggestionService;
+import com.chatty.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -25,6 +30,12 @@ public class ContactController {
     @Autowired
     private ContactService contactService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ContactSuggestionService contactSuggestionService;
+
     /**
      * Get all contacts with user details
      */
@@ -34,6 +45,18 @@ public class ContactController {
         return ResponseEntity.ok(contacts);
     }
 
+    /**
+     * Export all contacts with user details without loading the table into memory.
+     * format=ndjson (default) writes one contact per line, format=json writes a JSON array.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportContacts(@RequestParam(defaultValue = "ndjson") String format) {
+        boolean ndjson = !"json".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? ExportService.NDJSON : MediaType.APPLICATION_JSON)
+                .body(exportService.export(contactRepository::streamAll, contactService::enrichContacts, ndjson));
+    }
+
     /**
      * Get contact by initiator ID
      */
@@ -70,16 +93,31 @@ public class ContactController {
         return ResponseEntity.ok(contacts);
     }
 
+    /**
+     * People the user may know: friends of friends ranked by mutual contacts
+     */
+    @GetMapping("/suggestions/{userId}")
+    public ResponseEntity<List<ContactSuggestionDTO>> getSuggestions(@PathVariable UUID userId,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(contactSuggestionService.getSuggestions(userId, limit));
+    }
+
+    /**
+     * Contacts two users have in common
+     */
+    @GetMapping("/mutual/{userId}/{otherId}")
+    public ResponseEntity<List<UUID>> getMutualContacts(@PathVariable UUID userId, @PathVariable UUID otherId) {
+        return ResponseEntity.ok(contactSuggestionService.getMutualContacts(userId, otherId));
+    }
+
     /**
      * Create a new contact
      */
     @PostMapping
     public ResponseEntity<Contact> createContact(@RequestBody Contact contact) {
-        if (contactRepository.existsByInitiatorAndTarget(contact.getInitiator(), contact.getTarget())) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
-        }
-        Contact savedContact = contactRepository.save(contact);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedContact);
+        return contactService.createContact(contact)
+                .map(savedContact -> ResponseEntity.status(HttpStatus.CREATED).body(savedContact))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).body(null));
     }
 
     /**
@@ -87,10 +125,9 @@ public class ContactController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteContact(@PathVariable Long id) {
-        if (!contactRepository.existsById(id)) {
+        if (!contactService.deleteContact(id)) {
             return ResponseEntity.notFound().build();
         }
-        contactRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -110,5 +147,13 @@ public class ContactController {
     public ResponseEntity<Boolean> acceptFriendRequest(@PathVariable UUID userId, @PathVariable UUID requesterId){
         return ResponseEntity.ok(contactService.acceptFriendRequest(userId, requesterId));
     }
-}
 
+    /**
+     * Accept several pending requests sent to a user in one transaction.
+     * Returns the requesters whose requests were accepted; unknown or already handled ones are skipped.
+     */
+    @PostMapping("/acceptRequests/{userId}")
+    public ResponseEntity<List<UUID>> acceptFriendRequests(@PathVariable UUID userId, @RequestBody List<UUID> requesterIds){
+        return ResponseEntity.ok(contactService.acceptFriendRequests(userId, requesterIds));
+    }
+}
@@ -0,0 +1,103 @@
+package com.chatty.controller;
+
+import com.chatty.dto.GroupDTO;
+import com.chatty.entity.ChatGroup;
+import com.chatty.repository.ChatGroupRepository;
+import com.chatty.service.GroupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/groups")
+public class GroupController {
+
+    @Autowired
+    private ChatGroupRepository chatGroupRepository;
+
+    @Autowired
+    private GroupService groupService;
+
+    /**
+     * Get group by ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ChatGroup> getGroupById(@PathVariable UUID id) {
+        Optional<ChatGroup> group = chatGroupRepository.findById(id);
+        return group.map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get all groups a user is a member of
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<ChatGroup>> getGroupsForUser(@PathVariable UUID userId) {
+        return ResponseEntity.ok(chatGroupRepository.findGroupsForUser(userId));
+    }
+
+    /**
+     * Get the member ids of a group
+     */
+    @GetMapping("/{id}/members")
+    public ResponseEntity<List<UUID>> getMembers(@PathVariable UUID id) {
+        if (!chatGroupRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(groupService.getMembers(id));
+    }
+
+    /**
+     * Create a new group
+     */
+    @PostMapping
+    public ResponseEntity<ChatGroup> createGroup(@RequestBody GroupDTO groupDTO) {
+        if (groupDTO.getName() == null || groupDTO.getCreatedBy() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        ChatGroup group = groupService.createGroup(groupDTO.getName(), groupDTO.getCreatedBy(), groupDTO.getMembers());
+        return ResponseEntity.status(HttpStatus.CREATED).body(group);
+    }
+
+    /**
+     * Add a member to a group
+     */
+    @PostMapping("/{id}/members/{userId}")
+    public ResponseEntity<Void> addMember(@PathVariable UUID id, @PathVariable UUID userId) {
+        if (!chatGroupRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!groupService.addMember(id, userId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    /**
+     * Remove a member from a group
+     */
+    @DeleteMapping("/{id}/members/{userId}")
+    public ResponseEntity<Void> removeMember(@PathVariable UUID id, @PathVariable UUID userId) {
+        if (!groupService.removeMember(id, userId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Delete a group
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteGroup(@PathVariable UUID id) {
+        if (!chatGroupRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        groupService.deleteGroup(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,17 +1,57 @@
 package com.chatty.controller;
 
+import com.chatty.broker.BrokerShards;
+import com.chatty.broker.IndexedSubscriptionRegistry;
+import com.chatty.service.ReceiptService;
+import com.chatty.service.UserProfileCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/health")
 public class HealthController {
 
+    @Autowired
+    private BrokerShards brokerShards;
+
+    @Autowired
+    private IndexedSubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private ReceiptService receiptService;
+
     @GetMapping
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Backend is running!");
     }
-}
 
+    /**
+     * Broker statistics: subscriptions, queue depth per dispatch shard and receipts awaiting flush
+     */
+    @GetMapping("/broker")
+    public ResponseEntity<Map<String, Object>> brokerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscriptions", subscriptionRegistry.getSubscriptionCount());
+        stats.put("destinations", subscriptionRegistry.getDestinationCount());
+        stats.put("shardQueueDepths", brokerShards.getQueueDepths());
+        stats.put("pendingReceipts", receiptService.getPendingCount());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * User profile cache statistics: size, hits, misses and evictions
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(userProfileCache.getStats());
+    }
+}
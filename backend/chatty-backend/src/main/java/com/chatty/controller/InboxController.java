@@ -0,0 +1,58 @@
+package com.chatty.controller;
+
+import com.chatty.dto.InboxPageDTO;
+import com.chatty.service.ConversationSummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/inbox")
+public class InboxController {
+
+    @Autowired
+    private ConversationSummaryService conversationSummaryService;
+
+    /**
+     * Get a user's conversations with last message and unread count, most recent activity first
+     */
+    @GetMapping("/{userId}")
+    public ResponseEntity<InboxPageDTO> getInbox(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (!conversationSummaryService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(conversationSummaryService.getInbox(userId, page, size));
+    }
+
+    /**
+     * Mark a conversation as read, up to readAt (epoch milliseconds) or now
+     */
+    @PostMapping("/{userId}/read/{peerId}")
+    public ResponseEntity<Void> markRead(
+            @PathVariable UUID userId,
+            @PathVariable UUID peerId,
+            @RequestParam(required = false) Long readAt) {
+        long position = readAt != null ? readAt : System.currentTimeMillis();
+        if (!conversationSummaryService.isEnabled() || !conversationSummaryService.markRead(userId, peerId, position)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Rebuild all conversation summaries from the messages table
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuild() {
+        if (!conversationSummaryService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("conversations", conversationSummaryService.rebuild()));
+    }
+}
@@ -1,11 +1,20 @@
 package com.chatty.controller;
 
+import com.chatty.dto.MessagePageDTO;
+import com.chatty.dto.MessageSearchPageDTO;
 import com.chatty.entity.Message;
 import com.chatty.repository.MessageRepository;
+import com.chatty.service.ConversationWaiterRegistry;
+import com.chatty.service.ExportService;
+import com.chatty.service.MessageSearchService;
+import com.chatty.service.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,9 +24,23 @@ import java.util.UUID;
 @RequestMapping("/api/messages")
 public class MessageController {
 
+    private static final long POLL_TIMEOUT_MS = 30_000;
+
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ConversationWaiterRegistry waiterRegistry;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private MessageSearchService messageSearchService;
+
     /**
      * Get all messages
      */
@@ -27,6 +50,18 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * Export all messages without loading the table into memory.
+     * format=ndjson (default) writes one message per line, format=json writes a JSON array.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMessages(@RequestParam(defaultValue = "ndjson") String format) {
+        boolean ndjson = !"json".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? ExportService.NDJSON : MediaType.APPLICATION_JSON)
+                .body(exportService.export(messageRepository::streamAll, ndjson));
+    }
+
     /**
      * Get message by ID
      */
@@ -66,10 +101,76 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * Get one page of a group conversation.
+     * Pages backward from the newest message by default; pass the returned
+     * nextCursor to continue. Use direction=newer to page forward instead.
+     */
+    @GetMapping("/group/{groupId}")
+    public ResponseEntity<MessagePageDTO> getGroupMessages(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "older") String direction) {
+        boolean older = !"newer".equalsIgnoreCase(direction);
+        try {
+            return ResponseEntity.ok(messageService.getGroupPage(groupId, cursor, size, older));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get one page of the conversation between two users.
+     * Pages backward from the newest message by default; pass the returned
+     * nextCursor to continue. Use direction=newer to page forward instead.
+     */
+    @GetMapping("/conversation/page")
+    public ResponseEntity<MessagePageDTO> getConversationPage(
+            @RequestParam UUID user1,
+            @RequestParam UUID user2,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "older") String direction) {
+        boolean older = !"newer".equalsIgnoreCase(direction);
+        try {
+            return ResponseEntity.ok(messageService.getConversationPage(user1, user2, cursor, size, older));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Full-text search over the user's direct and group conversations, best match first.
+     * q accepts web search syntax: words, "quoted phrases", -excluded words and "or".
+     */
+    @GetMapping("/search")
+    public ResponseEntity<MessageSearchPageDTO> searchMessages(
+            @RequestParam UUID userId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(messageSearchService.search(userId, q, page, size));
+    }
+
+    /**
+     * Rebuild the full-text search index from the messages table
+     */
+    @PostMapping("/search/reindex")
+    public ResponseEntity<Void> rebuildSearchIndex() {
+        messageSearchService.rebuildIndex();
+        return ResponseEntity.accepted().build();
+    }
+
     /**
      * Long polling endpoint for new messages.
-     * Holds the connection for up to 30 seconds waiting for new messages.
+     * Parks the request for up to 30 seconds waiting for new messages.
      * Returns immediately if new messages are found.
+     * While parked the request holds no servlet thread and issues no queries,
+     * it is completed by {@link ConversationWaiterRegistry} when a message is saved.
      *
      * @param user1 first user's UUID
      * @param user2 second user's UUID
@@ -80,36 +181,20 @@ public class MessageController {
      */
     @Deprecated
     @GetMapping("/poll")
-    public ResponseEntity<List<Message>> pollForNewMessages(
+    public DeferredResult<ResponseEntity<List<Message>>> pollForNewMessages(
             @RequestParam UUID user1,
             @RequestParam UUID user2,
             @RequestParam Long since) {
 
-        System.out.println("Long polling started for user1=" + user1 + ", user2=" + user2 + ", since=" + since);
-
-        // Poll for up to 30 seconds
-        int maxAttempts = 30;
-        int pollIntervalMs = 1000; // Check every second
-
-        for (int i = 0; i < maxAttempts; i++) {
-            List<Message> newMessages = messageRepository.findNewMessagesInConversation(user1, user2, since);
-
-            if (!newMessages.isEmpty()) {
-                System.out.println("Found " + newMessages.size() + " new messages after " + i + " seconds");
-                return ResponseEntity.ok(newMessages);
-            }
+        // Register before querying so a message saved in between is not missed
+        DeferredResult<ResponseEntity<List<Message>>> result =
+                waiterRegistry.register(user1, user2, since, POLL_TIMEOUT_MS);
 
-            try {
-                Thread.sleep(pollIntervalMs);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return ResponseEntity.ok(List.of());
-            }
+        List<Message> newMessages = messageRepository.findNewMessagesInConversation(user1, user2, since);
+        if (!newMessages.isEmpty()) {
+            result.setResult(ResponseEntity.ok(newMessages));
         }
-
-        System.out.println("Long polling timeout after 30 seconds");
-        // Timeout - return empty list
-        return ResponseEntity.ok(List.of());
+        return result;
     }
 
     /**
@@ -117,7 +202,7 @@ public class MessageController {
      */
     @PostMapping
     public ResponseEntity<Message> createMessage(@RequestBody Message message) {
-        Message savedMessage = messageRepository.save(message);
+        Message savedMessage = messageService.saveMessage(message);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedMessage);
     }
 
@@ -126,15 +211,9 @@ public class MessageController {
      */
     @PutMapping("/{id}/delete")
     public ResponseEntity<Message> softDeleteMessage(@PathVariable UUID id) {
-        Optional<Message> optionalMessage = messageRepository.findById(id);
-        if (optionalMessage.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        Message message = optionalMessage.get();
-        message.setIsDeleted(true);
-        Message updatedMessage = messageRepository.save(message);
-        return ResponseEntity.ok(updatedMessage);
+        return messageService.softDeleteMessage(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
@@ -142,10 +221,9 @@ public class MessageController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMessage(@PathVariable UUID id) {
-        if (!messageRepository.existsById(id)) {
+        if (!messageService.deleteMessage(id)) {
             return ResponseEntity.notFound().build();
         }
-        messageRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 }
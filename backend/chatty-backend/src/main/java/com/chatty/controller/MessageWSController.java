@@ -6,14 +6,25 @@ import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import com.chatty.cluster.ClusterRouter;
+import com.chatty.dto.MessageCursor;
 import com.chatty.dto.MessageWSDTO;
+import com.chatty.dto.ReceiptAckDTO;
+import com.chatty.dto.SendRejectionDTO;
 import com.chatty.entity.Message;
-import com.chatty.repository.MessageRepository;
+import com.chatty.metrics.LogSampler;
+import com.chatty.metrics.MessageMetrics;
+import com.chatty.service.ContactGraph;
+import com.chatty.service.DeliveryCursorService;
+import com.chatty.service.GroupMembershipCache;
+import com.chatty.service.MessageService;
+import com.chatty.service.MessageWriteBehindQueue;
+import com.chatty.service.ReceiptService;
 
 @Controller
 public class MessageWSController {
@@ -21,34 +32,151 @@ public class MessageWSController {
     private static final Logger logger = LoggerFactory.getLogger(MessageWSController.class);
 
     @Autowired
-    MessageRepository messageRepository;
+    MessageService messageService;
 
     @Autowired
-    SimpMessagingTemplate messagingTemplate;
+    MessageWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    ClusterRouter clusterRouter;
+
+    @Autowired
+    GroupMembershipCache membershipCache;
+
+    @Autowired
+    DeliveryCursorService deliveryCursorService;
+
+    @Autowired
+    ReceiptService receiptService;
+
+    @Autowired
+    ContactGraph contactGraph;
+
+    @Autowired
+    MessageMetrics messageMetrics;
+
+    @Autowired
+    LogSampler logSampler;
+
+    // Only deliver direct messages between users who are contacts (checked in memory)
+    @Value("${chatty.messages.require-contact:true}")
+    boolean requireContact;
 
     @MessageMapping("/messages/send/{sender}/{receiver}")
     public void handleMessage(@DestinationVariable UUID sender, @DestinationVariable UUID receiver, MessageWSDTO messageDTO) {
-        logger.info("Received WebSocket message from {} to {}", sender, receiver);
+        messageMetrics.messageIn(false);
+        // The checks below are on the destination, so the body must not name other users
+        if ((messageDTO.sender() != null && !sender.equals(messageDTO.sender()))
+                || (messageDTO.receiver() != null && !receiver.equals(messageDTO.receiver()))) {
+            logger.warn("Rejected message whose body does not match destination {} -> {}", sender, receiver);
+            reject(sender, receiver, messageDTO, "invalid_destination");
+            return;
+        }
+        if (requireContact && !sender.equals(receiver) && !contactGraph.verifyContacts(sender, receiver)) {
+            logger.warn("Rejected message from {} to non-contact {}", sender, receiver);
+            reject(sender, receiver, messageDTO, "not_contact");
+            return;
+        }
 
         Message message = Message.builder()
-            .sender(messageDTO.sender())
-            .receiver(messageDTO.receiver())
+            .sender(sender)
+            .receiver(receiver)
             .text(messageDTO.messageText()).build();
 
+        if (writeBehindQueue.isEnabled()) {
+            deliverWriteBehind(message, sender, receiver);
+            return;
+        }
+
         // Save the incoming message
-        Message savedMessage = messageRepository.save(message);
-        logger.info("Saved message with id: {}", savedMessage.getId());
+        Message savedMessage = messageService.saveMessage(message);
 
         // Send the saved message directly (no need to query, we already have it)
         List<Message> messages = List.of(savedMessage);
 
-        // Send to receiver's queue
-        logger.info("Sending message to receiver queue: /queue/messages/{}", receiver);
-        messagingTemplate.convertAndSend("/queue/messages/" + receiver, messages);
-
-        // Also send to sender's queue so they see their own message confirmed
+        // Send to receiver's queue, and also to sender's queue so they see their own message confirmed
         // This is important for message confirmation and consistent UI
-        logger.info("Sending message to sender queue: /queue/messages/{}", sender);
-        messagingTemplate.convertAndSend("/queue/messages/" + sender, messages);
+        // The payload is serialized once and the same buffer is sent to both queues
+        clusterRouter.deliverToUsers(List.of(receiver, sender), messages);
+        if (logger.isDebugEnabled() && logSampler.sample()) {
+            logger.debug("Delivered message {} from {} to {}", savedMessage.getId(), sender, receiver);
+        }
+    }
+
+    /**
+     * Acknowledge receipt of messages up to the given position.
+     * Moves the user's delivery cursor, so a later reconnect only replays newer messages.
+     */
+    @MessageMapping("/messages/ack/{userId}")
+    public void handleAck(@DestinationVariable UUID userId, MessageCursor position) {
+        deliveryCursorService.advance(userId, position);
+    }
+
+    /**
+     * Delivered or read receipt for the messages from peerId up to the given position.
+     * Coalesced per conversation; the peer gets one consolidated receipt on /queue/receipts/{peerId}.
+     */
+    @MessageMapping("/messages/receipt/{readerId}/{peerId}")
+    public void handleReceipt(@DestinationVariable UUID readerId, @DestinationVariable UUID peerId, ReceiptAckDTO receipt) {
+        receiptService.acknowledge(readerId, peerId, receipt);
+    }
+
+    /**
+     * Send a message to every member of a group.
+     * Members come from the membership cache and the payload is serialized once,
+     * so a send costs one insert regardless of group size.
+     */
+    @MessageMapping("/messages/group/{groupId}/{sender}")
+    public void handleGroupMessage(@DestinationVariable UUID groupId, @DestinationVariable UUID sender, MessageWSDTO messageDTO) {
+        messageMetrics.messageIn(true);
+        List<UUID> members = membershipCache.getMembers(groupId);
+        if (!members.contains(sender)) {
+            logger.warn("Rejected group message from non-member {} to group {}", sender, groupId);
+            messageMetrics.dropped("rejected");
+            return;
+        }
+
+        Message message = Message.builder()
+            .sender(sender)
+            .groupId(groupId)
+            .text(messageDTO.messageText()).build();
+        Message savedMessage = messageService.saveMessage(message);
+
+        clusterRouter.deliverToUsers(members, List.of(savedMessage));
+    }
+
+    /**
+     * Tell the sender the message was not accepted, on /queue/errors/{sender}, instead of leaving it pending
+     */
+    private void reject(UUID sender, UUID receiver, MessageWSDTO messageDTO, String reason) {
+        messageMetrics.dropped("rejected");
+        clusterRouter.deliverToUser(sender, ClusterRouter.ERROR_QUEUE_PREFIX,
+                new SendRejectionDTO(receiver, messageDTO.messageText(), reason));
+    }
+
+    /**
+     * Write-behind mode: deliver to the receiver right away and persist asynchronously.
+     * The sender's confirmation doubles as the delivery ack, so it is only sent once the
+     * batch containing the message has committed.
+     */
+    private void deliverWriteBehind(Message message, UUID sender, UUID receiver) {
+        List<Message> messages = List.of(messageService.prepareMessage(message));
+        byte[] encoded = clusterRouter.encode(messages);
+        if (encoded == null) {
+            return;
+        }
+        boolean queued = writeBehindQueue.enqueue(message,
+                () -> clusterRouter.deliverEncoded(sender, encoded));
+
+        if (!queued) {
+            // Queue is saturated, fall back to a synchronous insert on this thread
+            logger.warn("Write-behind queue full, persisting message {} synchronously", message.getId());
+            messageService.saveAllNew(messages);
+            clusterRouter.deliverEncoded(receiver, encoded);
+            clusterRouter.deliverEncoded(sender, encoded);
+            return;
+        }
+
+        clusterRouter.deliverEncoded(receiver, encoded);
     }
 }
@@ -0,0 +1,35 @@
+package com.chatty.controller;
+
+import com.chatty.dto.PresenceDTO;
+import com.chatty.presence.PresenceRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/presence")
+public class PresenceController {
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    /**
+     * Get online status of a user
+     */
+    @GetMapping("/{userId}")
+    public ResponseEntity<PresenceDTO> getPresence(@PathVariable UUID userId) {
+        return ResponseEntity.ok(new PresenceDTO(userId, presenceRegistry.isOnline(userId)));
+    }
+
+    /**
+     * Get online status of several users (e.g. a contact list)
+     */
+    @PostMapping("/query")
+    public ResponseEntity<Map<UUID, Boolean>> getPresence(@RequestBody List<UUID> userIds) {
+        return ResponseEntity.ok(presenceRegistry.getOnlineStatus(userIds));
+    }
+}
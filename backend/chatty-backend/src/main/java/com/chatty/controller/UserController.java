@@ -1,11 +1,16 @@
 package com.chatty.controller;
 
 import com.chatty.entity.User;
+import com.chatty.id.Ids;
 import com.chatty.repository.UserRepository;
+import com.chatty.service.ExportService;
+import com.chatty.service.UserProfileCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,6 +23,12 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private ExportService exportService;
+
     /**
      * Get all users
      */
@@ -27,12 +38,24 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Export all users without loading the table into memory.
+     * format=ndjson (default) writes one user per line, format=json writes a JSON array.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        boolean ndjson = !"json".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? ExportService.NDJSON : MediaType.APPLICATION_JSON)
+                .body(exportService.export(userRepository::streamAll, ndjson));
+    }
+
     /**
      * Get user by ID
      */
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(@PathVariable UUID id) {
-        Optional<User> user = userRepository.findById(id);
+        Optional<User> user = userProfileCache.findById(id);
         return user.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -42,7 +65,7 @@ public class UserController {
      */
     @GetMapping("/username/{username}")
     public ResponseEntity<User> getUserByUsername(@PathVariable String username) {
-        Optional<User> user = userRepository.findByUsername(username);
+        Optional<User> user = userProfileCache.findByUsername(username);
         return user.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -52,7 +75,7 @@ public class UserController {
      */
     @GetMapping("/email/{email}")
     public ResponseEntity<User> getUserByEmail(@PathVariable String email) {
-        Optional<User> user = userRepository.findByEmail(email);
+        Optional<User> user = userProfileCache.findByEmail(email);
         return user.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -79,8 +102,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(null);
         }
-        UUID uuid = UUID.randomUUID();
-        user.setId(uuid);
+        user.setId(Ids.next());
         User savedUser = userRepository.save(user);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
     }
@@ -107,6 +129,7 @@ public class UserController {
         }
 
         User updatedUser = userRepository.save(user);
+        userProfileCache.evict(id);
         return ResponseEntity.ok(updatedUser);
     }
 
@@ -119,6 +142,7 @@ public class UserController {
             return ResponseEntity.notFound().build();
         }
         userRepository.deleteById(id);
+        userProfileCache.evict(id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,10 @@
+package com.chatty.dto;
+
+import java.util.UUID;
+
+/**
+ * Initiator and target of a contact row, without the rest of the entity
+ */
+public record ContactEdge(UUID initiator, UUID target) {
+
+}
@@ -0,0 +1,10 @@
+package com.chatty.dto;
+
+import java.util.UUID;
+
+/**
+ * "People you may know" entry: a user who is not a contact yet and how many contacts they share
+ */
+public record ContactSuggestionDTO(UUID userId, String username, String displayName, String photoUri, int mutualContacts) {
+
+}
@@ -0,0 +1,19 @@
+package com.chatty.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupDTO {
+    private String name;
+    private UUID createdBy;
+    private List<UUID> members;
+}
@@ -0,0 +1,30 @@
+package com.chatty.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InboxEntryDTO {
+    private UUID peer;
+
+    // Peer user details
+    private String peerUsername;
+    private String peerDisplayName;
+    private String peerPhotoUri;
+    private String peerStatus;
+
+    // Last non-deleted message, null fields when the conversation has none left
+    private UUID lastMessageId;
+    private UUID lastSender;
+    private String lastText;
+    private Long lastMessageAt;
+
+    private int unreadCount;
+}
@@ -0,0 +1,23 @@
+package com.chatty.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InboxPageDTO {
+    // Conversations, most recent activity first
+    private List<InboxEntryDTO> conversations;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,38 @@
+package com.chatty.dto;
+
+import java.util.UUID;
+
+/**
+ * Keyset pagination cursor: position of a message in (createdAt, id) order.
+ * Encoded for clients as "{createdAt}_{id}".
+ */
+public record MessageCursor(Long createdAt, UUID id) implements Comparable<MessageCursor> {
+
+    @Override
+    public int compareTo(MessageCursor other) {
+        int byTime = Long.compare(createdAt, other.createdAt);
+        return byTime != 0 ? byTime : compareIds(id, other.id);
+    }
+
+    /**
+     * Compare ids the way the database does: uuid columns compare as unsigned bytes, unlike UUID.compareTo
+     */
+    public static int compareIds(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    public String encode() {
+        return createdAt + "_" + id;
+    }
+
+    public static MessageCursor parse(String cursor) {
+        int separator = cursor.indexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new MessageCursor(
+                Long.parseLong(cursor.substring(0, separator)),
+                UUID.fromString(cursor.substring(separator + 1)));
+    }
+}
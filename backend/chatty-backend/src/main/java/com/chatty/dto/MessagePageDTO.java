@@ -0,0 +1,23 @@
+package com.chatty.dto;
+
+import com.chatty.entity.Message;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessagePageDTO {
+    // Messages in chronological order (oldest first)
+    private List<Message> messages;
+
+    // Cursor to pass back for the next page in the same direction, null when there are no more
+    private String nextCursor;
+
+    private boolean hasMore;
+}
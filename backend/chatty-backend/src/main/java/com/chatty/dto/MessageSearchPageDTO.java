@@ -0,0 +1,24 @@
+package com.chatty.dto;
+
+import com.chatty.entity.Message;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSearchPageDTO {
+    // Matching messages, best match first
+    private List<Message> messages;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasMore;
+}
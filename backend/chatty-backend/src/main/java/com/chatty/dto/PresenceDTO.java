@@ -0,0 +1,7 @@
+package com.chatty.dto;
+
+import java.util.UUID;
+
+public record PresenceDTO(UUID userId, boolean online) {
+
+}
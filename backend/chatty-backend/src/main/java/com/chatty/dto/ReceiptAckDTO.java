@@ -0,0 +1,12 @@
+package com.chatty.dto;
+
+import com.chatty.enums.ReceiptType;
+
+import java.util.UUID;
+
+/**
+ * Receipt sent by a client: every message from the peer up to (createdAt, id) was delivered or read
+ */
+public record ReceiptAckDTO(ReceiptType type, Long createdAt, UUID id) {
+
+}
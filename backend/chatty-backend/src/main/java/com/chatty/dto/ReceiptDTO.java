@@ -0,0 +1,11 @@
+package com.chatty.dto;
+
+import java.util.UUID;
+
+/**
+ * Consolidated receipt pushed to /queue/receipts/{sender}: how far the reader got in the conversation.
+ * A watermark is null when it did not move since the last receipt.
+ */
+public record ReceiptDTO(UUID reader, MessageCursor delivered, MessageCursor read) {
+
+}
@@ -0,0 +1,11 @@
+package com.chatty.dto;
+
+import java.util.UUID;
+
+/**
+ * Pushed to /queue/errors/{sender} when a direct message was not accepted, so the client can mark it failed.
+ * reason is "invalid_destination" or "not_contact".
+ */
+public record SendRejectionDTO(UUID receiver, String messageText, String reason) {
+
+}
@@ -0,0 +1,59 @@
+package com.chatty.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One row per (owner, peer) direct conversation, as seen from the owner's inbox.
+ * Maintained incrementally by ConversationSummaryService on every message save and delete.
+ */
+@Entity
+@Table(name = "conversation_summaries", schema = "public",
+    uniqueConstraints = @UniqueConstraint(name = "uq_conversation_summaries_owner_peer", columnNames = {"owner_id", "peer_id"}),
+    indexes = @Index(name = "idx_conversation_summaries_owner_last", columnList = "owner_id, last_message_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+
+    @Column(name = "peer_id", nullable = false)
+    private UUID peerId;
+
+    // Last non-deleted message in either direction, null when there is none left
+    @Column(name = "last_message_id")
+    private UUID lastMessageId;
+
+    @Column(name = "last_sender")
+    private UUID lastSender;
+
+    @Column(name = "last_text")
+    private String lastText;
+
+    @Column(name = "last_message_at")
+    private Long lastMessageAt;  // Epoch milliseconds
+
+    // Messages from the peer newer than lastReadAt
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount;
+
+    @Column(name = "last_read_at", nullable = false)
+    private Long lastReadAt;  // Epoch milliseconds
+
+    // Newest message from the peer delivered to one of the owner's devices
+    @Column(name = "last_delivered_at", nullable = false)
+    private Long lastDeliveredAt;  // Epoch milliseconds
+}
@@ -0,0 +1,34 @@
+package com.chatty.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Position of the last message a user has acknowledged, in (createdAt, id) order
+ */
+@Entity
+@Table(name = "delivery_cursors", schema = "public")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeliveryCursor {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "last_created_at", nullable = false)
+    private Long lastCreatedAt;  // Epoch milliseconds
+
+    @Column(name = "last_message_id", nullable = false)
+    private UUID lastMessageId;
+
+    @Column(name = "updated_at")
+    private Long updatedAt;
+}
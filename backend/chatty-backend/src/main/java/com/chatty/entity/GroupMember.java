@@ -0,0 +1,42 @@
+package com.chatty.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "group_members", schema = "public",
+    uniqueConstraints = @UniqueConstraint(name = "uq_group_members_group_user", columnNames = {"group_id", "user_id"}),
+    indexes = @Index(name = "idx_group_members_user", columnList = "user_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private UUID groupId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "joined_at")
+    private LocalDateTime joinedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (joinedAt == null) {
+            joinedAt = LocalDateTime.now();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.chatty.entity;
 
+import com.chatty.id.Ids;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,7 +9,13 @@ import lombok.NoArgsConstructor;
 import java.util.UUID;
 
 @Entity
-@Table(name = "messages", schema = "public")
+@Table(name = "messages", schema = "public", indexes = {
+    // Keyset pagination: each direction of a conversation is one bounded range scan
+    @Index(name = "idx_messages_sender_receiver_created_at", columnList = "sender, receiver, created_at"),
+    @Index(name = "idx_messages_group_created_at", columnList = "group_id, created_at"),
+    // Replay of missed messages on reconnect
+    @Index(name = "idx_messages_receiver_created_at", columnList = "receiver, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,6 +32,10 @@ public class Message {
     @Column
     private UUID receiver;
 
+    // Set for group messages, receiver is null then
+    @Column(name = "group_id")
+    private UUID groupId;
+
     @Column(name = "created_at")
     private Long createdAt;  // Epoch milliseconds - timezone agnostic
 
@@ -38,7 +49,7 @@ public class Message {
     @PrePersist
     protected void onCreate() {
         if (id == null) {
-            id = UUID.randomUUID();
+            id = Ids.next();
         }
         if (createdAt == null) {
             createdAt = System.currentTimeMillis();  // Server timestamp
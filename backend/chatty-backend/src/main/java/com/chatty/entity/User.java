@@ -1,5 +1,6 @@
 package com.chatty.entity;
 
+import com.chatty.id.Ids;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -41,7 +42,7 @@ public class User {
     @PrePersist
     protected void onCreate() {
         if (id == null) {
-            id = UUID.randomUUID();
+            id = Ids.next();
         }
         if (createdAt == null) {
             createdAt = OffsetDateTime.now();
@@ -0,0 +1,8 @@
+package com.chatty.enums;
+
+public enum ReceiptType {
+    // Message reached one of the reader's devices
+    DELIVERED,
+    // Reader has seen the message; implies DELIVERED
+    READ
+}
@@ -0,0 +1,11 @@
+package com.chatty.event;
+
+import java.util.UUID;
+
+/**
+ * Published after a contact row (the directed edge initiator -> target) has been created or deleted.
+ * remote is set when the change was made on another node and arrived through the cluster relay.
+ */
+public record ContactEdgeEvent(UUID initiator, UUID target, boolean added, boolean remote) {
+
+}
@@ -0,0 +1,11 @@
+package com.chatty.event;
+
+import java.util.UUID;
+
+/**
+ * Published after a group's members have changed (created, member added or removed, group deleted).
+ * remote is set when the change was made on another node and arrived through the cluster relay.
+ */
+public record GroupMembershipChangedEvent(UUID groupId, boolean remote) {
+
+}
@@ -0,0 +1,11 @@
+package com.chatty.event;
+
+import com.chatty.entity.Message;
+
+/**
+ * Published after a message has been soft deleted or deleted permanently.
+ * Only published once per message: deleting an already soft-deleted message does not publish it again.
+ */
+public record MessageRemovedEvent(Message message) {
+
+}
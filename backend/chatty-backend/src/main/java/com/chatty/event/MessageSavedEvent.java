@@ -0,0 +1,11 @@
+package com.chatty.event;
+
+import com.chatty.entity.Message;
+
+/**
+ * Published after a message has been persisted.
+ * Listeners must not block, they run on the thread that saved the message.
+ */
+public record MessageSavedEvent(Message message) {
+
+}
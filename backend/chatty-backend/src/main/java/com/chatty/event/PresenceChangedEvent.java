@@ -0,0 +1,10 @@
+package com.chatty.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a user gains its first or loses its last session on this node
+ */
+public record PresenceChangedEvent(UUID userId, boolean online) {
+
+}
@@ -0,0 +1,11 @@
+package com.chatty.id;
+
+import java.util.UUID;
+
+/**
+ * Source of primary keys for UUID-keyed entities
+ */
+public interface IdGenerator {
+
+    UUID nextId();
+}
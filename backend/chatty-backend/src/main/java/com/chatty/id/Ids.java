@@ -0,0 +1,24 @@
+package com.chatty.id;
+
+import java.util.UUID;
+
+/**
+ * Static access to the configured {@link IdGenerator}.
+ * Entity lifecycle callbacks are not Spring beans, so they obtain ids through here.
+ * Installed at startup by {@link com.chatty.config.IdGeneratorConfig}; defaults to UUIDv7.
+ */
+public final class Ids {
+
+    private static volatile IdGenerator generator = new UuidV7Generator();
+
+    private Ids() {
+    }
+
+    public static UUID next() {
+        return generator.nextId();
+    }
+
+    public static void use(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+}
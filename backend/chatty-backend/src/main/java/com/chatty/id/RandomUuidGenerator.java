@@ -0,0 +1,14 @@
+package com.chatty.id;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUIDs. Inserts land on random pages of the primary-key index.
+ */
+public class RandomUuidGenerator implements IdGenerator {
+
+    @Override
+    public UUID nextId() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,44 @@
+package com.chatty.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered (version 7, RFC 9562) UUIDs.
+ * <p>
+ * Layout: 48-bit unix epoch milliseconds, version, 12-bit sequence counter, variant, 62 random bits.
+ * Ids are strictly increasing within a JVM: the counter orders ids created in the same
+ * millisecond and, if it overflows, carries into the timestamp instead of going backwards.
+ * New rows therefore always append to the right-most leaf of a B-tree primary-key index.
+ */
+public class UuidV7Generator implements IdGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private final LongSupplier clock;
+
+    // (timestamp << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    public UuidV7Generator() {
+        this(System::currentTimeMillis);
+    }
+
+    UuidV7Generator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID nextId() {
+        long now = clock.getAsLong() << SEQUENCE_BITS;
+        long state = lastState.updateAndGet(last -> Math.max(now, last + 1));
+
+        long timestamp = (state >>> SEQUENCE_BITS) & 0xFFFF_FFFF_FFFFL;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        long mostSigBits = (timestamp << 16) | 0x7000L | sequence;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,22 @@
+package com.chatty.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples per-message debug logging so enabling DEBUG does not cost a log write per message.
+ * Use as {@code if (logger.isDebugEnabled() && logSampler.sample()) logger.debug(...)};
+ * counts and latencies belong in {@link MessageMetrics}.
+ */
+@Component
+public class LogSampler {
+
+    @Value("${chatty.logging.sample-rate:0.01}")
+    private double sampleRate;
+
+    public boolean sample() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,114 @@
+package com.chatty.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the message pipeline, exported at /actuator/prometheus:
+ * <ul>
+ *   <li>chatty.messages.in{type=direct|group}: messages accepted from clients</li>
+ *   <li>chatty.messages.persist: insert latency (one sample per message or write-behind batch)</li>
+ *   <li>chatty.messages.fanout: serialize and hand a payload to every recipient</li>
+ *   <li>chatty.messages.delivered{route=local|relay}: payloads handed to a local session queue or another node</li>
+ *   <li>chatty.messages.offline: payloads for users with no session on any node, left for offline replay</li>
+ *   <li>chatty.messages.dropped{reason}: messages that will never reach their recipients</li>
+ *   <li>chatty.messages.throttled: sends held back by the rate limiter</li>
+ *   <li>chatty.websocket.slow_consumer.disconnects: sessions closed for not draining their send buffer</li>
+ * </ul>
+ * Gauges (sessions, subscriptions, queue depths) are registered in MetricsConfig.
+ */
+@Component
+public class MessageMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Counter directIn;
+
+    private Counter groupIn;
+
+    private Counter deliveredLocal;
+
+    private Counter deliveredRelay;
+
+    private Counter offline;
+
+    private Counter throttled;
+
+    private Counter slowConsumerDisconnects;
+
+    private Timer persist;
+
+    private Timer fanOut;
+
+    @PostConstruct
+    public void init() {
+        directIn = Counter.builder("chatty.messages.in").tag("type", "direct")
+                .description("Messages received from clients").register(registry);
+        groupIn = Counter.builder("chatty.messages.in").tag("type", "group")
+                .description("Messages received from clients").register(registry);
+        deliveredLocal = Counter.builder("chatty.messages.delivered").tag("route", "local")
+                .description("Payloads sent to a session queue on this node").register(registry);
+        deliveredRelay = Counter.builder("chatty.messages.delivered").tag("route", "relay")
+                .description("Payloads relayed to another node").register(registry);
+        offline = Counter.builder("chatty.messages.offline")
+                .description("Payloads for users with no session on any node, replayed when they reconnect")
+                .register(registry);
+        throttled = Counter.builder("chatty.messages.throttled")
+                .description("Sends delayed by the rate limiter").register(registry);
+        slowConsumerDisconnects = Counter.builder("chatty.websocket.slow_consumer.disconnects")
+                .description("Sessions closed because their send buffer or send time limit was exceeded")
+                .register(registry);
+        persist = Timer.builder("chatty.messages.persist")
+                .description("Message insert latency")
+                .publishPercentileHistogram()
+                .register(registry);
+        fanOut = Timer.builder("chatty.messages.fanout")
+                .description("Time to serialize a payload and hand it to every recipient")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void messageIn(boolean group) {
+        (group ? groupIn : directIn).increment();
+    }
+
+    public void deliveredLocally() {
+        deliveredLocal.increment();
+    }
+
+    public void relayed() {
+        deliveredRelay.increment();
+    }
+
+    public void offline() {
+        offline.increment();
+    }
+
+    public void throttled() {
+        throttled.increment();
+    }
+
+    public void slowConsumerDisconnected() {
+        slowConsumerDisconnects.increment();
+    }
+
+    /**
+     * @param reason short tag value, e.g. rejected, rate_limited_user, encode_failed, persist_failed
+     */
+    public void dropped(String reason) {
+        registry.counter("chatty.messages.dropped", "reason", reason).increment();
+    }
+
+    public Timer persist() {
+        return persist;
+    }
+
+    public Timer fanOut() {
+        return fanOut;
+    }
+}
@@ -0,0 +1,30 @@
+package com.chatty.presence;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refreshes session presence on every inbound frame (client inbound channel)
+ */
+@Component
+public class PresenceChannelInterceptor implements ChannelInterceptor {
+
+    // Lazy: the registry needs the messaging template, which is built from the channel config
+    @Lazy
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            presenceRegistry.touch(sessionId);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,247 @@
+package com.chatty.presence;
+
+import com.chatty.cluster.ClusterRouter;
+import com.chatty.dto.PresenceDTO;
+import com.chatty.event.PresenceChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory registry of which users are connected, maintained from WebSocket session events.
+ * <p>
+ * A session belongs to a user while it is subscribed to /queue/messages/{userId}. Every inbound
+ * frame, including STOMP heartbeats, refreshes the session; sessions silent for longer than
+ * chatty.presence.expiry-ms are treated as gone until they send again. Online/offline
+ * transitions are pushed to /topic/presence/{userId}. Queries never touch the database.
+ */
+@Service
+public class PresenceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    private static final String USER_QUEUE_PREFIX = "/queue/messages/";
+
+    private static final String PRESENCE_TOPIC_PREFIX = "/topic/presence/";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Lazy: the router itself depends on this registry for local presence
+    @Lazy
+    @Autowired
+    private ClusterRouter clusterRouter;
+
+    @Value("${chatty.presence.expiry-ms:30000}")
+    private long expiryMs;
+
+    // userId -> live local sessions
+    private final Map<UUID, Set<String>> userSessions = new ConcurrentHashMap<>();
+
+    private final Map<String, SessionPresence> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, expiryMs / 4);
+        sweeper.scheduleAtFixedRate(this::expireSilentSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    public void onSessionConnected(String sessionId) {
+        sessions.computeIfAbsent(sessionId, id -> new SessionPresence());
+    }
+
+    /**
+     * A session subscribed to a destination; only user queues identify the session's user
+     */
+    public void onSubscribe(String sessionId, String subscriptionId, String destination) {
+        UUID userId = userIdOf(destination);
+        if (userId == null || subscriptionId == null) {
+            return;
+        }
+        SessionPresence session = sessions.computeIfAbsent(sessionId, id -> new SessionPresence());
+        session.subscriptions.put(subscriptionId, userId);
+        session.lastSeen = System.currentTimeMillis();
+        if (!session.expired) {
+            attach(userId, sessionId);
+        }
+    }
+
+    /**
+     * A session unsubscribed; it no longer belongs to the user once its last user queue subscription is gone.
+     * UNSUBSCRIBE frames only carry the subscription id, so subscriptions are tracked per session.
+     */
+    public void onUnsubscribe(String sessionId, String subscriptionId) {
+        SessionPresence session = sessions.get(sessionId);
+        if (session == null || subscriptionId == null) {
+            return;
+        }
+        UUID userId = session.subscriptions.remove(subscriptionId);
+        if (userId != null && !session.subscriptions.containsValue(userId) && !session.expired) {
+            detach(userId, sessionId);
+        }
+    }
+
+    /**
+     * Any inbound frame from the session, heartbeats included
+     */
+    public void touch(String sessionId) {
+        SessionPresence session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        session.lastSeen = System.currentTimeMillis();
+        if (session.expired) {
+            // Came back after being expired: online again
+            session.expired = false;
+            session.userIds().forEach(userId -> attach(userId, sessionId));
+        }
+    }
+
+    public void onSessionClosed(String sessionId) {
+        SessionPresence session = sessions.remove(sessionId);
+        if (session != null) {
+            session.userIds().forEach(userId -> detach(userId, sessionId));
+        }
+    }
+
+    /**
+     * Number of STOMP sessions on this node
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Whether the user has a live session on this node
+     */
+    public boolean isOnlineLocally(UUID userId) {
+        return userSessions.containsKey(userId);
+    }
+
+    /**
+     * Whether the user has a live session on any node
+     */
+    public boolean isOnline(UUID userId) {
+        return isOnlineLocally(userId) || clusterRouter.isOnlineRemotely(userId);
+    }
+
+    public Map<UUID, Boolean> getOnlineStatus(Collection<UUID> userIds) {
+        Map<UUID, Boolean> status = new LinkedHashMap<>();
+        for (UUID userId : userIds) {
+            status.put(userId, isOnline(userId));
+        }
+        return status;
+    }
+
+    /**
+     * Users with a live session on this node
+     */
+    public Set<UUID> getLocalUsers() {
+        return userSessions.keySet();
+    }
+
+    /**
+     * Push a presence update to /topic/presence/{userId} subscribers on this node
+     */
+    public void broadcast(UUID userId, boolean online) {
+        messagingTemplate.convertAndSend(PRESENCE_TOPIC_PREFIX + userId, new PresenceDTO(userId, online));
+    }
+
+    private void attach(UUID userId, String sessionId) {
+        boolean[] firstSession = new boolean[1];
+        userSessions.compute(userId, (id, current) -> {
+            Set<String> live = current != null ? current : ConcurrentHashMap.newKeySet();
+            firstSession[0] = live.isEmpty();
+            live.add(sessionId);
+            return live;
+        });
+        if (firstSession[0]) {
+            eventPublisher.publishEvent(new PresenceChangedEvent(userId, true));
+            broadcast(userId, true);
+        }
+    }
+
+    private void detach(UUID userId, String sessionId) {
+        boolean[] lastSession = new boolean[1];
+        userSessions.computeIfPresent(userId, (id, live) -> {
+            live.remove(sessionId);
+            lastSession[0] = live.isEmpty();
+            return lastSession[0] ? null : live;
+        });
+        if (lastSession[0]) {
+            eventPublisher.publishEvent(new PresenceChangedEvent(userId, false));
+            if (!clusterRouter.isOnlineRemotely(userId)) {
+                broadcast(userId, false);
+            }
+        }
+    }
+
+    private void expireSilentSessions() {
+        try {
+            long cutoff = System.currentTimeMillis() - expiryMs;
+            sessions.forEach((sessionId, session) -> {
+                if (!session.expired && session.lastSeen < cutoff) {
+                    session.expired = true;
+                    session.userIds().forEach(userId -> detach(userId, sessionId));
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Presence sweep failed", e);
+        }
+    }
+
+    private static UUID userIdOf(String destination) {
+        if (destination == null || !destination.startsWith(USER_QUEUE_PREFIX)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(destination.substring(USER_QUEUE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class SessionPresence {
+        // subscriptionId -> user of a /queue/messages/{userId} subscription
+        private final Map<String, UUID> subscriptions = new ConcurrentHashMap<>();
+        private volatile long lastSeen = System.currentTimeMillis();
+        private volatile boolean expired;
+
+        private Set<UUID> userIds() {
+            return new HashSet<>(subscriptions.values());
+        }
+    }
+}
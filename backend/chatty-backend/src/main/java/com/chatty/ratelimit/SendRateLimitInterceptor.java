@@ -0,0 +1,201 @@
+package com.chatty.ratelimit;
+
+import com.chatty.metrics.MessageMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-user and global send rate limits on the client inbound channel.
+ * <p>
+ * Only message sends (/app/messages/send/ and /app/messages/group/) are limited; acks, receipts and
+ * heartbeats pass through. A frame over the limit is held for up to chatty.ratelimit.max-delay-ms on the
+ * thread reading the client's socket, which stops reading from that client (backpressure on its TCP
+ * connection) without affecting anyone else. Past that the frame is dropped and the client gets a STOMP
+ * ERROR frame; per the STOMP spec the server then closes the connection.
+ * <p>
+ * Per-user buckets are keyed on the authenticated principal, so one user's limit is shared by all of their
+ * sessions, or on the session when there is none. The sender in the destination is client-chosen and is
+ * never used as the key: rotating it would otherwise give a client a fresh bucket per frame.
+ */
+@Component
+public class SendRateLimitInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendRateLimitInterceptor.class);
+
+    private static final String SEND_PREFIX = "/app/messages/send/";
+
+    private static final String GROUP_PREFIX = "/app/messages/group/";
+
+    private static final long PRUNE_INTERVAL_MS = 60_000;
+
+    private static final String SESSION_KEY_PREFIX = "session:";
+
+    // Lazy: the channel is built from the configuration this interceptor is registered in
+    @Lazy
+    @Autowired
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @Value("${chatty.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chatty.ratelimit.user.rate:20}")
+    private double userRate;
+
+    @Value("${chatty.ratelimit.user.burst:40}")
+    private int userBurst;
+
+    @Value("${chatty.ratelimit.global.rate:5000}")
+    private double globalRate;
+
+    @Value("${chatty.ratelimit.global.burst:10000}")
+    private int globalBurst;
+
+    @Value("${chatty.ratelimit.max-delay-ms:250}")
+    private long maxDelayMs;
+
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+
+    // Sessions already sent an ERROR; later frames still in flight are dropped quietly
+    private final Set<String> rejectedSessions = ConcurrentHashMap.newKeySet();
+
+    private TokenBucket globalBucket;
+
+    private ScheduledExecutorService pruner;
+
+    @PostConstruct
+    public void start() {
+        globalBucket = new TokenBucket(globalRate, globalBurst);
+        pruner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ratelimit-pruner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pruner.scheduleWithFixedDelay(this::pruneFullBuckets, PRUNE_INTERVAL_MS, PRUNE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pruner.shutdownNow();
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (accessor.getCommand() != StompCommand.SEND) {
+            return message;
+        }
+        if (!isLimited(accessor.getDestination())) {
+            return message;
+        }
+        String sessionId = accessor.getSessionId();
+        if (sessionId != null && rejectedSessions.contains(sessionId)) {
+            return null;
+        }
+        String key = bucketKey(accessor);
+        if (key == null) {
+            return message;
+        }
+
+        long now = System.nanoTime();
+        long maxWait = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        TokenBucket userBucket = userBuckets.computeIfAbsent(key, k -> new TokenBucket(userRate, userBurst));
+        long userWait = userBucket.reserve(now, maxWait);
+        if (userWait < 0) {
+            reject(accessor, "user");
+            return null;
+        }
+        long globalWait = globalBucket.reserve(now, maxWait);
+        if (globalWait < 0) {
+            // The frame is not sent, so it must not count against the user
+            userBucket.refund();
+            reject(accessor, "global");
+            return null;
+        }
+
+        long wait = Math.max(userWait, globalWait);
+        if (wait > 0) {
+            messageMetrics.throttled();
+            LockSupport.parkNanos(wait);
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        rejectedSessions.remove(event.getSessionId());
+        userBuckets.remove(SESSION_KEY_PREFIX + event.getSessionId());
+    }
+
+    private void reject(StompHeaderAccessor inbound, String scope) {
+        messageMetrics.dropped("rate_limited_" + scope);
+        String sessionId = inbound.getSessionId();
+        if (sessionId == null || !rejectedSessions.add(sessionId)) {
+            return;
+        }
+        logger.warn("Rate limit ({}) exceeded on session {}, destination {}", scope, sessionId, inbound.getDestination());
+
+        StompHeaderAccessor error = StompHeaderAccessor.create(StompCommand.ERROR);
+        error.setMessage("Rate limit exceeded");
+        error.setSessionId(sessionId);
+        if (inbound.getReceipt() != null) {
+            error.setReceiptId(inbound.getReceipt());
+        }
+        clientOutboundChannel.send(MessageBuilder.createMessage(new byte[0], error.getMessageHeaders()));
+    }
+
+    private void pruneFullBuckets() {
+        long now = System.nanoTime();
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Whether the destination is a message send: /app/messages/send/{sender}/{receiver} or
+     * /app/messages/group/{groupId}/{sender}
+     */
+    private static boolean isLimited(String destination) {
+        return destination != null && (destination.startsWith(SEND_PREFIX) || destination.startsWith(GROUP_PREFIX));
+    }
+
+    /**
+     * The principal's name, or the session id for anonymous sessions
+     */
+    private static String bucketKey(StompHeaderAccessor accessor) {
+        Principal user = accessor.getUser();
+        if (user != null) {
+            return "user:" + user.getName();
+        }
+        String sessionId = accessor.getSessionId();
+        return sessionId != null ? SESSION_KEY_PREFIX + sessionId : null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.chatty.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a GCRA (generic cell rate algorithm): the whole state is
+ * one "theoretical arrival time" updated by compare-and-set, so concurrent callers never block.
+ * A full bucket allows {@code burst} immediate takes, then one every {@code 1/rate} seconds.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /**
+     * Take a token if one is available now or within maxWaitNanos.
+     *
+     * @return -1 if rejected (nothing taken), otherwise the nanos the caller must wait before using the token
+     */
+    public long reserve(long nowNanos, long maxWaitNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long wait = Math.max(0, next - nowNanos - burstNanos);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Give back a token taken by {@link #reserve(long, long)}, e.g. when a later check rejected the request
+     */
+    public void refund() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * Whether the bucket has refilled completely, i.e. forgetting it changes nothing
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
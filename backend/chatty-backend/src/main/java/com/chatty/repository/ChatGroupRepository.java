@@ -0,0 +1,23 @@
+package com.chatty.repository;
+
+import com.chatty.entity.ChatGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ChatGroupRepository extends JpaRepository<ChatGroup, UUID> {
+
+    /**
+     * Find all groups a user is a member of
+     * @param userId the member's UUID
+     * @return List of groups
+     */
+    @Query("SELECT g FROM ChatGroup g WHERE g.id IN " +
+           "(SELECT gm.groupId FROM GroupMember gm WHERE gm.userId = :userId)")
+    List<ChatGroup> findGroupsForUser(@Param("userId") UUID userId);
+}
@@ -1,14 +1,21 @@
 package com.chatty.repository;
 
+import com.chatty.dto.ContactEdge;
 import com.chatty.entity.Contact;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ContactRepository extends JpaRepository<Contact, Long> {
@@ -50,5 +57,45 @@ public interface ContactRepository extends JpaRepository<Contact, Long> {
      */
     @Query("SELECT c FROM Contact c WHERE c.initiator = :userId OR c.target = :userId")
     List<Contact> findAllContactsForUser(@Param("userId") UUID userId);
-}
 
+    /**
+     * Insert both directional contact rows for every request sent to a recipient by the given requesters,
+     * in one statement (IDENTITY keys rule out JDBC insert batching). Pairs that are already contacts are skipped.
+     * Reads contact_requests, so run it before the requests are deleted, in the same transaction
+     * @param recipient the accepting user's UUID
+     * @param requesters the requesters' UUIDs
+     * @return number of contact rows inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO public.contact (initiator, target, created_at) " +
+           "SELECT e.initiator, e.target, CURRENT_TIMESTAMP FROM (" +
+           "SELECT r.recipient AS initiator, r.requester AS target FROM public.contact_requests r " +
+           "WHERE r.recipient = :recipient AND r.requester IN (:requesters) " +
+           "UNION ALL " +
+           "SELECT r.requester AS initiator, r.recipient AS target FROM public.contact_requests r " +
+           "WHERE r.recipient = :recipient AND r.requester IN (:requesters)) e " +
+           "WHERE NOT EXISTS (SELECT 1 FROM public.contact c WHERE c.initiator = e.initiator AND c.target = e.target)",
+           nativeQuery = true)
+    int insertFromRequests(@Param("recipient") UUID recipient, @Param("requesters") Collection<UUID> requesters);
+
+    /**
+     * Stream all contacts.
+     * Forward-only cursor with a fetch size, for streaming exports; must be consumed inside a transaction
+     * @return Stream of all contacts
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Contact c")
+    Stream<Contact> streamAll();
+
+    /**
+     * Stream every contact as an (initiator, target) pair, without loading entities into the persistence context.
+     * Must be consumed inside a transaction
+     * @return Stream of all contact edges
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.chatty.dto.ContactEdge(c.initiator, c.target) FROM Contact c")
+    Stream<ContactEdge> streamEdges();
+}
@@ -1,9 +1,13 @@
 package com.chatty.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.chatty.entity.ContactRequest;
 
@@ -13,4 +17,29 @@ public interface ContactRequestRepository extends JpaRepository<ContactRequest,
     
     ContactRequest findByRequesterAndRecipient(UUID requester, UUID recipient);
 
+    /**
+     * Lock the pending requests sent to a recipient by the given requesters.
+     * Concurrent accepts of the same request wait here and then see it gone; call inside a transaction
+     * @param recipient the recipient's UUID
+     * @param requesters the requesters' UUIDs
+     * @return requesters with a pending request to the recipient
+     */
+    @Query(value = "SELECT r.requester FROM public.contact_requests r " +
+           "WHERE r.recipient = :recipient AND r.requester IN (:requesters) AND r.status = 'PENDING' " +
+           "FOR UPDATE",
+           nativeQuery = true)
+    List<UUID> lockPending(@Param("recipient") UUID recipient, @Param("requesters") Collection<UUID> requesters);
+
+    /**
+     * Delete the requests sent to a recipient by the given requesters, in one statement
+     * @param recipient the recipient's UUID
+     * @param requesters the requesters' UUIDs
+     * @return number of requests deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM public.contact_requests r " +
+           "WHERE r.recipient = :recipient AND r.requester IN (:requesters)",
+           nativeQuery = true)
+    int deleteRequests(@Param("recipient") UUID recipient, @Param("requesters") Collection<UUID> requesters);
+
 }
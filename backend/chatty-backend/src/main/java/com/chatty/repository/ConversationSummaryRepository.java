@@ -0,0 +1,156 @@
+package com.chatty.repository;
+
+import com.chatty.entity.ConversationSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    /**
+     * Find a user's conversations, most recent activity first
+     * @param ownerId the inbox owner's UUID
+     * @param pageable page and size
+     * @return Slice of conversation summaries
+     */
+    @Query("SELECT s FROM ConversationSummary s WHERE s.ownerId = :ownerId " +
+           "ORDER BY s.lastMessageAt DESC NULLS LAST, s.id DESC")
+    Slice<ConversationSummary> findInbox(@Param("ownerId") UUID ownerId, Pageable pageable);
+
+    /**
+     * Record a new message in the owner's summary of the conversation, creating it if needed.
+     * Atomic upsert, safe for concurrent and out-of-order messages: the last message only
+     * moves forward in time, and the unread counter only counts messages newer than last_read_at.
+     * @param ownerId the inbox owner's UUID
+     * @param peerId the other participant's UUID
+     * @param messageId the message's UUID
+     * @param sender the message's sender
+     * @param text the message text
+     * @param createdAt the message timestamp in epoch milliseconds
+     * @param unread 1 if the owner received the message, 0 if they sent it
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO public.conversation_summaries AS s " +
+           "(owner_id, peer_id, last_message_id, last_sender, last_text, last_message_at, unread_count, last_read_at, last_delivered_at) " +
+           "VALUES (:ownerId, :peerId, :messageId, :sender, :text, :createdAt, :unread, 0, 0) " +
+           "ON CONFLICT (owner_id, peer_id) DO UPDATE SET " +
+           "last_message_id = CASE WHEN s.last_message_at IS NULL OR EXCLUDED.last_message_at >= s.last_message_at " +
+           "THEN EXCLUDED.last_message_id ELSE s.last_message_id END, " +
+           "last_sender = CASE WHEN s.last_message_at IS NULL OR EXCLUDED.last_message_at >= s.last_message_at " +
+           "THEN EXCLUDED.last_sender ELSE s.last_sender END, " +
+           "last_text = CASE WHEN s.last_message_at IS NULL OR EXCLUDED.last_message_at >= s.last_message_at " +
+           "THEN EXCLUDED.last_text ELSE s.last_text END, " +
+           "last_message_at = GREATEST(s.last_message_at, EXCLUDED.last_message_at), " +
+           "unread_count = s.unread_count + CASE WHEN EXCLUDED.last_message_at > s.last_read_at " +
+           "THEN EXCLUDED.unread_count ELSE 0 END",
+           nativeQuery = true)
+    void upsertMessage(
+            @Param("ownerId") UUID ownerId,
+            @Param("peerId") UUID peerId,
+            @Param("messageId") UUID messageId,
+            @Param("sender") UUID sender,
+            @Param("text") String text,
+            @Param("createdAt") Long createdAt,
+            @Param("unread") int unread);
+
+    /**
+     * Move the owner's delivered and read watermarks for the conversation forward.
+     * The unread counter is recounted from the messages table, a range scan on
+     * idx_messages_sender_receiver_created_at bounded by the number of unread messages.
+     * @param ownerId the reader's UUID
+     * @param peerId the other participant's UUID
+     * @param deliveredAt delivered position in epoch milliseconds, 0 to leave it
+     * @param readAt read position in epoch milliseconds, 0 to leave it
+     * @return number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE public.conversation_summaries s SET " +
+           "last_delivered_at = GREATEST(s.last_delivered_at, :deliveredAt, :readAt), " +
+           "last_read_at = GREATEST(s.last_read_at, :readAt), " +
+           "unread_count = (SELECT count(*) FROM public.messages m " +
+           "WHERE m.sender = :peerId AND m.receiver = :ownerId " +
+           "AND m.created_at > GREATEST(s.last_read_at, :readAt) AND m.is_deleted IS NOT TRUE) " +
+           "WHERE s.owner_id = :ownerId AND s.peer_id = :peerId",
+           nativeQuery = true)
+    int applyReceipts(
+            @Param("ownerId") UUID ownerId,
+            @Param("peerId") UUID peerId,
+            @Param("deliveredAt") long deliveredAt,
+            @Param("readAt") long readAt);
+
+    /**
+     * Take a removed message out of the receiver's unread counter, if it was still unread
+     * @param ownerId the receiver's UUID
+     * @param peerId the sender's UUID
+     * @param createdAt the removed message's timestamp in epoch milliseconds
+     * @return number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE public.conversation_summaries s SET unread_count = GREATEST(s.unread_count - 1, 0) " +
+           "WHERE s.owner_id = :ownerId AND s.peer_id = :peerId AND s.last_read_at < :createdAt",
+           nativeQuery = true)
+    int decrementUnread(
+            @Param("ownerId") UUID ownerId,
+            @Param("peerId") UUID peerId,
+            @Param("createdAt") Long createdAt);
+
+    /**
+     * Replace the last message of the owner's summary if it was the removed one,
+     * with the newest remaining non-deleted message of the conversation (or nulls)
+     * @param ownerId the inbox owner's UUID
+     * @param peerId the other participant's UUID
+     * @param removedId the removed message's UUID
+     * @return number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE public.conversation_summaries s SET " +
+           "(last_message_id, last_sender, last_text, last_message_at) = " +
+           "(SELECT m.id, m.sender, m.text, m.created_at FROM public.messages m " +
+           "WHERE ((m.sender = :ownerId AND m.receiver = :peerId) OR (m.sender = :peerId AND m.receiver = :ownerId)) " +
+           "AND m.is_deleted IS NOT TRUE " +
+           "ORDER BY m.created_at DESC, m.id DESC LIMIT 1) " +
+           "WHERE s.owner_id = :ownerId AND s.peer_id = :peerId AND s.last_message_id = :removedId",
+           nativeQuery = true)
+    int replaceRemovedLastMessage(
+            @Param("ownerId") UUID ownerId,
+            @Param("peerId") UUID peerId,
+            @Param("removedId") UUID removedId);
+
+    /**
+     * Delete all summaries, before a rebuild
+     */
+    @Modifying
+    @Query(value = "DELETE FROM public.conversation_summaries", nativeQuery = true)
+    int deleteAllSummaries();
+
+    /**
+     * Recreate the summaries of all direct conversations from the messages table.
+     * Rebuilt conversations start fully read, read state is not stored in messages.
+     * @return number of rows inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO public.conversation_summaries " +
+           "(owner_id, peer_id, last_message_id, last_sender, last_text, last_message_at, unread_count, last_read_at, last_delivered_at) " +
+           "SELECT DISTINCT ON (c.owner_id, c.peer_id) " +
+           "c.owner_id, c.peer_id, c.id, c.sender, c.text, c.created_at, 0, c.created_at, c.created_at FROM (" +
+           "SELECT m.sender AS owner_id, m.receiver AS peer_id, m.id, m.sender, m.text, m.created_at " +
+           "FROM public.messages m WHERE m.receiver IS NOT NULL AND m.is_deleted IS NOT TRUE " +
+           "UNION ALL " +
+           "SELECT m.receiver AS owner_id, m.sender AS peer_id, m.id, m.sender, m.text, m.created_at " +
+           "FROM public.messages m WHERE m.receiver IS NOT NULL AND m.is_deleted IS NOT TRUE" +
+           ") c ORDER BY c.owner_id, c.peer_id, c.created_at DESC, c.id DESC",
+           nativeQuery = true)
+    int rebuildFromMessages();
+}
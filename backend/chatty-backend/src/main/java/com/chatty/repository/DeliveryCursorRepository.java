@@ -0,0 +1,12 @@
+package com.chatty.repository;
+
+import com.chatty.entity.DeliveryCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface DeliveryCursorRepository extends JpaRepository<DeliveryCursor, UUID> {
+
+}
@@ -0,0 +1,52 @@
+package com.chatty.repository;
+
+import com.chatty.entity.GroupMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface GroupMemberRepository extends JpaRepository<GroupMember, Long> {
+
+    /**
+     * Find the user ids of all members of a group
+     * @param groupId the group's UUID
+     * @return List of member user ids
+     */
+    @Query("SELECT gm.userId FROM GroupMember gm WHERE gm.groupId = :groupId")
+    List<UUID> findUserIdsByGroupId(@Param("groupId") UUID groupId);
+
+    /**
+     * Check if a user is a member of a group
+     * @param groupId the group's UUID
+     * @param userId the user's UUID
+     * @return true if the user is a member
+     */
+    boolean existsByGroupIdAndUserId(UUID groupId, UUID userId);
+
+    /**
+     * Remove a user from a group
+     * @param groupId the group's UUID
+     * @param userId the user's UUID
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GroupMember gm WHERE gm.groupId = :groupId AND gm.userId = :userId")
+    int deleteByGroupIdAndUserId(@Param("groupId") UUID groupId, @Param("userId") UUID userId);
+
+    /**
+     * Remove all members of a group
+     * @param groupId the group's UUID
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GroupMember gm WHERE gm.groupId = :groupId")
+    void deleteByGroupId(@Param("groupId") UUID groupId);
+}
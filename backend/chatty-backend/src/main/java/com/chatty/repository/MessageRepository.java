@@ -1,13 +1,18 @@
 package com.chatty.repository;
 
 import com.chatty.entity.Message;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, UUID> {
@@ -34,6 +39,50 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
      */
     List<Message> findBySenderAndReceiver(UUID sender, UUID receiver);
 
+    /**
+     * Find the newest messages of a group conversation.
+     * Served by a range scan on idx_messages_group_created_at.
+     * @param groupId the group's UUID
+     * @param pageable page size (offset must be 0)
+     * @return List of messages, newest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.groupId = :groupId ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findLatestInGroup(@Param("groupId") UUID groupId, Pageable pageable);
+
+    /**
+     * Find messages of a group conversation that are older than the (createdAt, id) cursor
+     * @param groupId the group's UUID
+     * @param createdAt cursor timestamp in epoch milliseconds
+     * @param id cursor message id, breaks ties between equal timestamps
+     * @param pageable page size (offset must be 0)
+     * @return List of messages, newest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.groupId = :groupId " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findInGroupBefore(
+            @Param("groupId") UUID groupId,
+            @Param("createdAt") Long createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * Find messages of a group conversation that are newer than the (createdAt, id) cursor
+     * @param groupId the group's UUID
+     * @param createdAt cursor timestamp in epoch milliseconds
+     * @param id cursor message id, breaks ties between equal timestamps
+     * @param pageable page size (offset must be 0)
+     * @return List of messages, oldest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.groupId = :groupId " +
+           "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    List<Message> findInGroupAfter(
+            @Param("groupId") UUID groupId,
+            @Param("createdAt") Long createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
     /**
      * Find all non-deleted messages by sender
      * @param sender the sender's UUID
@@ -69,5 +118,115 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
             @Param("user1") UUID user1,
             @Param("user2") UUID user2,
             @Param("since") Long since);
-}
 
+    /**
+     * Find the newest messages sent in one direction (sender -> receiver).
+     * Served by a range scan on idx_messages_sender_receiver_created_at.
+     * @param sender the sender's UUID
+     * @param receiver the receiver's UUID
+     * @param pageable page size (offset must be 0)
+     * @return List of messages, newest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.sender = :sender AND m.receiver = :receiver " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findLatestInDirection(
+            @Param("sender") UUID sender,
+            @Param("receiver") UUID receiver,
+            Pageable pageable);
+
+    /**
+     * Find messages sent in one direction that are older than the (createdAt, id) cursor
+     * @param sender the sender's UUID
+     * @param receiver the receiver's UUID
+     * @param createdAt cursor timestamp in epoch milliseconds
+     * @param id cursor message id, breaks ties between equal timestamps
+     * @param pageable page size (offset must be 0)
+     * @return List of messages, newest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.sender = :sender AND m.receiver = :receiver " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findInDirectionBefore(
+            @Param("sender") UUID sender,
+            @Param("receiver") UUID receiver,
+            @Param("createdAt") Long createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * Find messages sent in one direction that are newer than the (createdAt, id) cursor
+     * @param sender the sender's UUID
+     * @param receiver the receiver's UUID
+     * @param createdAt cursor timestamp in epoch milliseconds
+     * @param id cursor message id, breaks ties between equal timestamps
+     * @param pageable page size (offset must be 0)
+     * @return List of messages, oldest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.sender = :sender AND m.receiver = :receiver " +
+           "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    List<Message> findInDirectionAfter(
+            @Param("sender") UUID sender,
+            @Param("receiver") UUID receiver,
+            @Param("createdAt") Long createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    /**
+     * Find messages received by a user after the (createdAt, id) cursor, up to a timestamp, for replay on reconnect
+     * @param receiver the receiver's UUID
+     * @param createdAt cursor timestamp in epoch milliseconds
+     * @param id cursor message id, breaks ties between equal timestamps
+     * @param until newest timestamp to include, in epoch milliseconds
+     * @param pageable batch size (offset must be 0)
+     * @return List of messages, oldest first
+     */
+    @Query("SELECT m FROM Message m WHERE m.receiver = :receiver " +
+           "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+           "AND m.createdAt <= :until " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    List<Message> findReceivedBetween(
+            @Param("receiver") UUID receiver,
+            @Param("createdAt") Long createdAt,
+            @Param("id") UUID id,
+            @Param("until") Long until,
+            Pageable pageable);
+
+    /**
+     * Full-text search over the conversations a user takes part in (direct and group), best match first.
+     * Served by the GIN expression index idx_messages_text_fts (see MessageSearchService); the
+     * to_tsvector expression must stay identical to the index definition for it to be used.
+     * Soft-deleted messages are excluded.
+     * @param userId the searching user's UUID
+     * @param query search terms, websearch syntax ("quoted phrase", -excluded, or)
+     * @param limit max rows to return
+     * @param offset rows to skip
+     * @return List of matching messages, ranked
+     */
+    @Query(value = "SELECT m.* FROM public.messages m " +
+           "WHERE to_tsvector('simple', coalesce(m.text, '')) @@ websearch_to_tsquery('simple', :query) " +
+           "AND m.is_deleted IS NOT TRUE " +
+           "AND (m.sender = :userId OR m.receiver = :userId OR m.group_id IN " +
+           "(SELECT gm.group_id FROM public.group_members gm WHERE gm.user_id = :userId)) " +
+           "ORDER BY ts_rank(to_tsvector('simple', coalesce(m.text, '')), websearch_to_tsquery('simple', :query)) DESC, " +
+           "m.created_at DESC, m.id DESC " +
+           "LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<Message> searchForUser(
+            @Param("userId") UUID userId,
+            @Param("query") String query,
+            @Param("limit") int limit,
+            @Param("offset") int offset);
+
+    /**
+     * Stream all messages.
+     * Forward-only cursor with a fetch size, for streaming exports; must be consumed inside a transaction
+     * @return Stream of all messages
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Message m")
+    Stream<Message> streamAll();
+}
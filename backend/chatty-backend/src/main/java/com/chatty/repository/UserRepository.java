@@ -1,12 +1,17 @@
 package com.chatty.repository;
 
 import com.chatty.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
@@ -45,5 +50,16 @@ public interface UserRepository extends JpaRepository<User, UUID> {
      * @return List of users with the given status
      */
     List<User> findByStatus(String status);
-}
 
+    /**
+     * Stream all users.
+     * Forward-only cursor with a fetch size, for streaming exports; must be consumed inside a transaction
+     * @return Stream of all users
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u")
+    Stream<User> streamAll();
+}
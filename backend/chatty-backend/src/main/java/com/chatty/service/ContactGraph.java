@@ -0,0 +1,231 @@
+package com.chatty.service;
+
+import com.chatty.dto.ContactEdge;
+import com.chatty.event.ContactEdgeEvent;
+import com.chatty.repository.ContactRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory adjacency index of the contact graph, so relationship checks cost no database reads.
+ * <p>
+ * Contact rows are directed edges (initiator -> target); an accepted request creates one in each
+ * direction. The whole graph is loaded at startup and then follows {@link ContactEdgeEvent}s, which
+ * ContactService publishes after each change has committed and the cluster relay forwards to the
+ * other nodes.
+ * <p>
+ * A missed event (e.g. a relay frame lost between nodes) must not leave two contacts unable to talk:
+ * {@link #verifyContacts(UUID, UUID)} falls back to the database when the graph has no edge and repairs
+ * it, and the graph is periodically reconciled against the contact table.
+ */
+@Service
+public class ContactGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactGraph.class);
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 0 disables the periodic reconcile
+    @Value("${chatty.contacts.reconcile-interval-ms:300000}")
+    private long reconcileIntervalMs;
+
+    private final Map<UUID, Set<UUID>> outgoing = new ConcurrentHashMap<>();
+
+    private final Map<UUID, Set<UUID>> incoming = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reconciler;
+
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        Long edges = transactionTemplate.execute(status -> {
+            try (Stream<ContactEdge> rows = contactRepository.streamEdges()) {
+                return rows.mapToLong(edge -> link(edge.initiator(), edge.target()) ? 1 : 0).sum();
+            }
+        });
+        logger.info("Loaded contact graph: {} edges, {} users in {} ms",
+                edges, outgoing.size(), System.currentTimeMillis() - start);
+
+        if (reconcileIntervalMs > 0) {
+            reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "contact-graph-reconcile");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reconciler.scheduleWithFixedDelay(this::reconcileSafely, reconcileIntervalMs, reconcileIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether either user has the other as a contact
+     */
+    public boolean areContacts(UUID a, UUID b) {
+        return hasEdge(a, b) || hasEdge(b, a);
+    }
+
+    /**
+     * Like {@link #areContacts(UUID, UUID)}, but when the graph has no edge the contact table is checked
+     * and any edge found there is added to the graph. Positive checks stay in memory.
+     */
+    public boolean verifyContacts(UUID a, UUID b) {
+        if (areContacts(a, b)) {
+            return true;
+        }
+        boolean forward = contactRepository.existsByInitiatorAndTarget(a, b);
+        boolean backward = contactRepository.existsByInitiatorAndTarget(b, a);
+        if (forward) {
+            repair(a, b);
+        }
+        if (backward) {
+            repair(b, a);
+        }
+        return forward || backward;
+    }
+
+    /**
+     * Bring the graph in line with the contact table: edges missing from the graph are added and
+     * edges no longer in the table are removed. Each fix is published as a remote {@link ContactEdgeEvent},
+     * so other local listeners follow without the change being relayed again.
+     *
+     * @return the number of edges added or removed
+     */
+    public int reconcile() {
+        // Only edges present before the read can be stale; newer ones may have committed after it
+        Set<ContactEdge> before = new HashSet<>();
+        forEachEdge((initiator, target) -> before.add(new ContactEdge(initiator, target)));
+        Set<ContactEdge> stored = transactionTemplate.execute(status -> {
+            try (Stream<ContactEdge> rows = contactRepository.streamEdges()) {
+                Set<ContactEdge> edges = new HashSet<>();
+                rows.forEach(edges::add);
+                return edges;
+            }
+        });
+
+        int fixed = 0;
+        for (ContactEdge edge : stored) {
+            if (!hasEdge(edge.initiator(), edge.target())) {
+                publish(edge.initiator(), edge.target(), true);
+                fixed++;
+            }
+        }
+        for (ContactEdge edge : before) {
+            if (!stored.contains(edge) && hasEdge(edge.initiator(), edge.target())) {
+                publish(edge.initiator(), edge.target(), false);
+                fixed++;
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * Whether a contact row initiator -> target exists
+     */
+    public boolean hasEdge(UUID initiator, UUID target) {
+        Set<UUID> targets = outgoing.get(initiator);
+        return targets != null && targets.contains(target);
+    }
+
+    /**
+     * Users connected to the user in either direction
+     */
+    public Set<UUID> contactsOf(UUID userId) {
+        Set<UUID> targets = outgoing.getOrDefault(userId, Set.of());
+        Set<UUID> initiators = incoming.getOrDefault(userId, Set.of());
+        if (initiators.isEmpty()) {
+            return Set.copyOf(targets);
+        }
+        Set<UUID> contacts = new HashSet<>(targets);
+        contacts.addAll(initiators);
+        return contacts;
+    }
+
+    /**
+     * Visit every edge as (initiator, target)
+     */
+    public void forEachEdge(BiConsumer<UUID, UUID> visitor) {
+        outgoing.forEach((initiator, targets) -> targets.forEach(target -> visitor.accept(initiator, target)));
+    }
+
+    @EventListener
+    public void onContactEdge(ContactEdgeEvent event) {
+        if (event.added()) {
+            link(event.initiator(), event.target());
+        } else {
+            unlink(event.initiator(), event.target());
+        }
+    }
+
+    private void reconcileSafely() {
+        try {
+            int fixed = reconcile();
+            if (fixed > 0) {
+                logger.warn("Contact graph reconcile fixed {} edges", fixed);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Contact graph reconcile failed", e);
+        }
+    }
+
+    private void repair(UUID initiator, UUID target) {
+        logger.warn("Contact edge {} -> {} was missing from the graph, repairing", initiator, target);
+        publish(initiator, target, true);
+    }
+
+    private void publish(UUID initiator, UUID target, boolean added) {
+        ContactEdgeEvent event = new ContactEdgeEvent(initiator, target, added, true);
+        // Applied here first so the fix does not depend on listener order
+        onContactEdge(event);
+        eventPublisher.publishEvent(event);
+    }
+
+    private boolean link(UUID initiator, UUID target) {
+        incoming.computeIfAbsent(target, id -> ConcurrentHashMap.newKeySet()).add(initiator);
+        return outgoing.computeIfAbsent(initiator, id -> ConcurrentHashMap.newKeySet()).add(target);
+    }
+
+    private void unlink(UUID initiator, UUID target) {
+        remove(outgoing, initiator, target);
+        remove(incoming, target, initiator);
+    }
+
+    private static void remove(Map<UUID, Set<UUID>> adjacency, UUID from, UUID to) {
+        adjacency.computeIfPresent(from, (id, neighbours) -> {
+            neighbours.remove(to);
+            return neighbours.isEmpty() ? null : neighbours;
+        });
+    }
+}
@@ -5,11 +5,13 @@ import com.chatty.entity.Contact;
 import com.chatty.entity.ContactRequest;
 import com.chatty.entity.User;
 import com.chatty.enums.ContactRequestStatus;
+import com.chatty.event.ContactEdgeEvent;
 import com.chatty.repository.ContactRepository;
 import com.chatty.repository.ContactRequestRepository;
-import com.chatty.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,6 +19,9 @@ import java.util.stream.Collectors;
 @Service
 public class ContactService {
 
+    // Requesters per statement in a bulk accept, well below the driver's bind parameter limit
+    private static final int ACCEPT_CHUNK_SIZE = 1000;
+
     @Autowired
     private ContactRepository contactRepository;
 
@@ -24,7 +29,16 @@ public class ContactService {
     private ContactRequestRepository contactRequestRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ContactGraph contactGraph;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * Get all contacts for a user with user details
@@ -43,6 +57,45 @@ public class ContactService {
         return enrichContactsWithUserDetails(contacts, null);
     }
 
+    /**
+     * Add user details to a batch of contacts (used by the streaming export)
+     */
+    public List<ContactDTO> enrichContacts(List<Contact> contacts) {
+        return enrichContactsWithUserDetails(contacts, null);
+    }
+
+    /**
+     * Create a contact (one directed edge)
+     * @return the saved contact, or empty if the initiator already has the target as a contact
+     */
+    public Optional<Contact> createContact(Contact contact) {
+        if (contactGraph.hasEdge(contact.getInitiator(), contact.getTarget())) {
+            return Optional.empty();
+        }
+        Contact savedContact = contactRepository.save(contact);
+        eventPublisher.publishEvent(new ContactEdgeEvent(savedContact.getInitiator(), savedContact.getTarget(), true, false));
+        return Optional.of(savedContact);
+    }
+
+    /**
+     * Delete a contact by ID
+     * @return false if there was no such contact
+     */
+    public boolean deleteContact(Long id) {
+        Optional<Contact> contact = contactRepository.findById(id);
+        if (contact.isEmpty()) {
+            return false;
+        }
+        UUID initiator = contact.get().getInitiator();
+        UUID target = contact.get().getTarget();
+        contactRepository.deleteById(id);
+        // Older data may hold duplicate rows for the same pair; the edge stays while one is left
+        if (!contactRepository.existsByInitiatorAndTarget(initiator, target)) {
+            eventPublisher.publishEvent(new ContactEdgeEvent(initiator, target, false, false));
+        }
+        return true;
+    }
+
     /**
      * 
      * Create a friend request
@@ -57,14 +110,42 @@ public class ContactService {
      * Accept a friend request
      */
     public boolean acceptFriendRequest(UUID userId, UUID requesterId){
-        ContactRequest contactRequest = contactRequestRepository.findByRequesterAndRecipient(requesterId, userId);
-        contactRequestRepository.delete(contactRequest);
+        return !acceptFriendRequests(userId, List.of(requesterId)).isEmpty();
+    }
 
-        Contact contactFrom = Contact.builder().initiator(userId).target(requesterId).build();
-        Contact contactTo = Contact.builder().initiator(requesterId).target(userId).build();
-        contactRepository.save(contactFrom);
-        contactRepository.save(contactTo);
-        return true;
+    /**
+     * Accept the pending requests sent to a user by the given requesters, in one transaction.
+     * Each chunk of requesters costs three statements (lock, insert both directions, delete)
+     * however many requests it holds; unknown or already handled requests are skipped.
+     * @return requesters whose requests were accepted
+     */
+    public List<UUID> acceptFriendRequests(UUID userId, Collection<UUID> requesterIds) {
+        List<UUID> requesters = requesterIds.stream().distinct().toList();
+        if (requesters.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> accepted = transactionTemplate.execute(status -> {
+            List<UUID> result = new ArrayList<>();
+            for (int from = 0; from < requesters.size(); from += ACCEPT_CHUNK_SIZE) {
+                List<UUID> chunk = requesters.subList(from, Math.min(from + ACCEPT_CHUNK_SIZE, requesters.size()));
+                List<UUID> pending = contactRequestRepository.lockPending(userId, chunk);
+                if (pending.isEmpty()) {
+                    continue;
+                }
+                contactRepository.insertFromRequests(userId, pending);
+                contactRequestRepository.deleteRequests(userId, pending);
+                result.addAll(pending);
+            }
+            return result;
+        });
+        if (accepted == null) {
+            return List.of();
+        }
+        for (UUID requester : accepted) {
+            eventPublisher.publishEvent(new ContactEdgeEvent(userId, requester, true, false));
+            eventPublisher.publishEvent(new ContactEdgeEvent(requester, userId, true, false));
+        }
+        return accepted;
     }
 
     /**
@@ -90,10 +171,8 @@ public class ContactService {
             }
         }
 
-        // Fetch all users in one query
-        List<User> users = userRepository.findAllById(userIds);
-        Map<UUID, User> userMap = users.stream()
-                .collect(Collectors.toMap(User::getId, user -> user));
+        // Served from the profile cache; only uncached users are fetched, in one query
+        Map<UUID, User> userMap = userProfileCache.findAllById(userIds);
 
         // Build DTOs with user details
         List<ContactDTO> contactDTOs = new ArrayList<>();
@@ -0,0 +1,136 @@
+package com.chatty.service;
+
+import com.chatty.dto.ContactSuggestionDTO;
+import com.chatty.entity.User;
+import com.chatty.event.ContactEdgeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * "People you may know": friends of friends ranked by mutual contacts, from a {@link MutualContactIndex}
+ * built off the in-memory {@link ContactGraph}.
+ * <p>
+ * The top chatty.suggestions.top-k of each user asked for are cached. Edge changes are applied on a
+ * single thread; a change between a and b affects a, b and their contacts, and those that are cached
+ * are recomputed right away (up to chatty.suggestions.eager-refresh-limit, the rest are dropped and
+ * recomputed on the next request).
+ */
+@Service
+public class ContactSuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactSuggestionService.class);
+
+    @Autowired
+    private ContactGraph contactGraph;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Value("${chatty.suggestions.top-k:50}")
+    private int topK;
+
+    @Value("${chatty.suggestions.cache-size:100000}")
+    private long cacheSize;
+
+    @Value("${chatty.suggestions.eager-refresh-limit:256}")
+    private int eagerRefreshLimit;
+
+    private final MutualContactIndex index = new MutualContactIndex();
+
+    private Cache<UUID, List<MutualContactIndex.Suggestion>> topSuggestions;
+
+    private ExecutorService updater;
+
+    @PostConstruct
+    public void start() {
+        topSuggestions = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        long begin = System.currentTimeMillis();
+        contactGraph.forEachEdge(index::addEdge);
+        logger.info("Built mutual contact index for {} users in {} ms", index.size(), System.currentTimeMillis() - begin);
+        updater = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "contact-suggestions"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        updater.shutdownNow();
+    }
+
+    /**
+     * Up to limit suggestions for the user, best first (limit is capped at chatty.suggestions.top-k)
+     */
+    public List<ContactSuggestionDTO> getSuggestions(UUID userId, int limit) {
+        List<MutualContactIndex.Suggestion> top = topSuggestions.get(userId, id -> index.suggest(id, topK));
+        List<MutualContactIndex.Suggestion> page = top.subList(0, Math.min(Math.max(limit, 0), top.size()));
+
+        Set<UUID> ids = new HashSet<>();
+        page.forEach(suggestion -> ids.add(suggestion.userId()));
+        Map<UUID, User> users = userProfileCache.findAllById(ids);
+        return page.stream().map(suggestion -> {
+            User user = users.get(suggestion.userId());
+            return new ContactSuggestionDTO(suggestion.userId(),
+                    user != null ? user.getUsername() : null,
+                    user != null ? user.getDisplayName() : null,
+                    user != null ? user.getPhotoUri() : null,
+                    suggestion.mutualContacts());
+        }).toList();
+    }
+
+    public List<UUID> getMutualContacts(UUID userId, UUID otherId) {
+        return index.mutualContacts(userId, otherId);
+    }
+
+    @EventListener
+    public void onContactEdge(ContactEdgeEvent event) {
+        updater.execute(() -> {
+            try {
+                apply(event);
+            } catch (RuntimeException e) {
+                logger.error("Failed to update contact suggestions for {} -> {}", event.initiator(), event.target(), e);
+            }
+        });
+    }
+
+    private void apply(ContactEdgeEvent event) {
+        UUID a = event.initiator();
+        UUID b = event.target();
+        if (event.added()) {
+            index.addEdge(a, b);
+        } else if (!contactGraph.hasEdge(b, a)) {
+            // The pair stays connected while the reverse row exists
+            index.removeEdge(a, b);
+        }
+
+        Set<UUID> affected = new HashSet<>();
+        affected.add(a);
+        affected.add(b);
+        affected.addAll(index.contactsOf(a));
+        affected.addAll(index.contactsOf(b));
+        int refreshed = 0;
+        for (UUID userId : affected) {
+            if (topSuggestions.getIfPresent(userId) == null) {
+                continue;
+            }
+            if (refreshed++ < eagerRefreshLimit) {
+                topSuggestions.put(userId, index.suggest(userId, topK));
+            } else {
+                topSuggestions.invalidate(userId);
+            }
+        }
+    }
+}
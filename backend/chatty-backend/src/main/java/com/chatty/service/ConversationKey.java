@@ -0,0 +1,24 @@
+package com.chatty.service;
+
+import java.util.UUID;
+
+/**
+ * Order-independent key for a one-to-one conversation.
+ * ConversationKey.of(a, b) equals ConversationKey.of(b, a).
+ */
+public record ConversationKey(UUID low, UUID high) {
+
+    public static ConversationKey of(UUID user1, UUID user2) {
+        if (user1.compareTo(user2) <= 0) {
+            return new ConversationKey(user1, user2);
+        }
+        return new ConversationKey(user2, user1);
+    }
+
+    /**
+     * Get the other participant of the conversation
+     */
+    public UUID other(UUID userId) {
+        return low.equals(userId) ? high : low;
+    }
+}
@@ -0,0 +1,185 @@
+package com.chatty.service;
+
+import com.chatty.dto.InboxEntryDTO;
+import com.chatty.dto.InboxPageDTO;
+import com.chatty.entity.ConversationSummary;
+import com.chatty.entity.Message;
+import com.chatty.entity.User;
+import com.chatty.event.MessageRemovedEvent;
+import com.chatty.event.MessageSavedEvent;
+import com.chatty.repository.ConversationSummaryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the conversation_summaries table behind the inbox view.
+ * <p>
+ * Every direct message updates two rows, the sender's and the receiver's view of the conversation,
+ * with an atomic upsert; deletes replace the last message and fix the unread counter. The inbox is
+ * then a single index range scan per page instead of one conversation query per contact.
+ * Updates run on a single background thread so message listeners do not block on the database;
+ * the summary lags the messages table by at most the queue length. Group messages are not summarised.
+ * <p>
+ * The queries are PostgreSQL-specific (ON CONFLICT, DISTINCT ON); chatty.inbox.summaries.enabled=false
+ * turns the summaries off, e.g. on other databases.
+ */
+@Service
+public class ConversationSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSummaryService.class);
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private ConversationSummaryRepository summaryRepository;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${chatty.inbox.summaries.enabled:true}")
+    private boolean enabled;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "conversation-summary"));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Let queued updates finish so the summaries stay in step with the messages table
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Whether summaries are maintained; the inbox and read receipts are unavailable otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener
+    public void onMessageSaved(MessageSavedEvent event) {
+        Message message = event.message();
+        if (!enabled || message.getReceiver() == null) {
+            return;
+        }
+        executor.execute(() -> applySaved(message));
+    }
+
+    @EventListener
+    public void onMessageRemoved(MessageRemovedEvent event) {
+        Message message = event.message();
+        if (!enabled || message.getReceiver() == null) {
+            return;
+        }
+        executor.execute(() -> applyRemoved(message));
+    }
+
+    private void applySaved(Message message) {
+        try {
+            summaryRepository.upsertMessage(message.getSender(), message.getReceiver(), message.getId(),
+                    message.getSender(), message.getText(), message.getCreatedAt(), 0);
+            if (!message.getSender().equals(message.getReceiver())) {
+                summaryRepository.upsertMessage(message.getReceiver(), message.getSender(), message.getId(),
+                        message.getSender(), message.getText(), message.getCreatedAt(), 1);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to update conversation summary for message {}", message.getId(), e);
+        }
+    }
+
+    private void applyRemoved(Message message) {
+        try {
+            summaryRepository.decrementUnread(message.getReceiver(), message.getSender(), message.getCreatedAt());
+            summaryRepository.replaceRemovedLastMessage(message.getSender(), message.getReceiver(), message.getId());
+            summaryRepository.replaceRemovedLastMessage(message.getReceiver(), message.getSender(), message.getId());
+        } catch (Exception e) {
+            logger.error("Failed to update conversation summary for removed message {}", message.getId(), e);
+        }
+    }
+
+    /**
+     * Get one page of a user's inbox, most recent activity first
+     * @param page zero-based page number
+     * @param size page size, capped at MAX_PAGE_SIZE
+     */
+    public InboxPageDTO getInbox(UUID userId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        Slice<ConversationSummary> slice = summaryRepository.findInbox(userId, PageRequest.of(pageNumber, pageSize));
+
+        List<UUID> peerIds = slice.getContent().stream().map(ConversationSummary::getPeerId).toList();
+        Map<UUID, User> peers = userProfileCache.findAllById(peerIds);
+
+        List<InboxEntryDTO> conversations = slice.getContent().stream()
+                .map(summary -> toDTO(summary, peers.get(summary.getPeerId())))
+                .toList();
+        return InboxPageDTO.builder()
+                .conversations(conversations)
+                .page(pageNumber)
+                .size(pageSize)
+                .hasMore(slice.hasNext())
+                .build();
+    }
+
+    /**
+     * Mark a conversation as read up to a timestamp
+     * @return false if the user has no summary for this conversation
+     */
+    public boolean markRead(UUID userId, UUID peerId, long readAt) {
+        return summaryRepository.applyReceipts(userId, peerId, readAt, readAt) > 0;
+    }
+
+    /**
+     * Recreate all summaries from the messages table, in one transaction.
+     * Unread counters restart at zero.
+     * @return number of summaries created
+     */
+    public int rebuild() {
+        Integer rows = transactionTemplate.execute(status -> {
+            summaryRepository.deleteAllSummaries();
+            return summaryRepository.rebuildFromMessages();
+        });
+        logger.info("Rebuilt {} conversation summaries", rows);
+        return rows == null ? 0 : rows;
+    }
+
+    private InboxEntryDTO toDTO(ConversationSummary summary, User peer) {
+        InboxEntryDTO.InboxEntryDTOBuilder builder = InboxEntryDTO.builder()
+                .peer(summary.getPeerId())
+                .lastMessageId(summary.getLastMessageId())
+                .lastSender(summary.getLastSender())
+                .lastText(summary.getLastText())
+                .lastMessageAt(summary.getLastMessageAt())
+                .unreadCount(summary.getUnreadCount());
+        if (peer != null) {
+            builder.peerUsername(peer.getUsername())
+                    .peerDisplayName(peer.getDisplayName())
+                    .peerPhotoUri(peer.getPhotoUri())
+                    .peerStatus(peer.getStatus());
+        }
+        return builder.build();
+    }
+}
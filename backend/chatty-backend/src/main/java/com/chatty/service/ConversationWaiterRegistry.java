@@ -0,0 +1,80 @@
+package com.chatty.service;
+
+import com.chatty.entity.Message;
+import com.chatty.event.MessageSavedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process registry of parked long-poll requests, keyed by conversation.
+ * Waiters are completed directly when a message is saved, so an idle poller
+ * holds neither a servlet thread nor a database connection.
+ */
+@Component
+public class ConversationWaiterRegistry {
+
+    private final Map<ConversationKey, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Park a waiter for new messages in the conversation after the given timestamp.
+     * The waiter is removed from the registry once it completes, times out or errors.
+     */
+    public DeferredResult<ResponseEntity<List<Message>>> register(UUID user1, UUID user2, long since, long timeoutMs) {
+        DeferredResult<ResponseEntity<List<Message>>> result =
+                new DeferredResult<>(timeoutMs, ResponseEntity.ok(List.of()));
+        ConversationKey key = ConversationKey.of(user1, user2);
+        Waiter waiter = new Waiter(since, result);
+
+        waiters.compute(key, (k, set) -> {
+            Set<Waiter> conversationWaiters = set != null ? set : ConcurrentHashMap.newKeySet();
+            conversationWaiters.add(waiter);
+            return conversationWaiters;
+        });
+        result.onCompletion(() -> remove(key, waiter));
+        result.onTimeout(() -> remove(key, waiter));
+        result.onError(e -> remove(key, waiter));
+        return result;
+    }
+
+    @EventListener
+    public void onMessageSaved(MessageSavedEvent event) {
+        Message message = event.message();
+        if (message.getReceiver() == null) {
+            return;
+        }
+        Set<Waiter> conversationWaiters = waiters.get(ConversationKey.of(message.getSender(), message.getReceiver()));
+        if (conversationWaiters == null) {
+            return;
+        }
+        for (Waiter waiter : conversationWaiters) {
+            if (message.getCreatedAt() != null && message.getCreatedAt() > waiter.since()) {
+                waiter.result().setResult(ResponseEntity.ok(List.of(message)));
+            }
+        }
+    }
+
+    /**
+     * Number of requests currently parked
+     */
+    public int size() {
+        return waiters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void remove(ConversationKey key, Waiter waiter) {
+        waiters.computeIfPresent(key, (k, set) -> {
+            set.remove(waiter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private record Waiter(long since, DeferredResult<ResponseEntity<List<Message>>> result) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.chatty.service;
+
+import com.chatty.dto.MessageCursor;
+import com.chatty.repository.DeliveryCursorRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user delivery cursors: the last message each user acknowledged.
+ * <p>
+ * Acks only move the cached cursor forward; dirty cursors are upserted in one JDBC batch every
+ * chatty.delivery.cursor-flush-ms and on shutdown, so a busy chat costs no write per ack.
+ * A crash can lose the last interval of acks, which only means a few messages are replayed twice.
+ * The cache is bounded by chatty.delivery.cursor-cache.max-size and entries expire after
+ * chatty.delivery.cursor-cache.ttl, so a cursor advanced on another node is reloaded. The upsert
+ * only moves a stored cursor forward, so nodes flushing in any order cannot move it back.
+ * <p>
+ * While a reconnect replays missed messages, the client also acks live messages newer than the
+ * replayed ones. Acks are capped at the last replayed position until the replay reaches the
+ * subscription time, so an ack never moves the cursor over messages that were not delivered yet.
+ */
+@Service
+public class DeliveryCursorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryCursorService.class);
+
+    @Autowired
+    private DeliveryCursorRepository deliveryCursorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${chatty.delivery.cursor-flush-ms:5000}")
+    private long flushIntervalMs;
+
+    @Value("${chatty.delivery.cursor-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${chatty.delivery.cursor-cache.ttl:10m}")
+    private Duration ttl;
+
+    private static final MessageCursor NOTHING_REPLAYED = new MessageCursor(Long.MIN_VALUE, new UUID(0L, 0L));
+
+    private static final String UPSERT = "INSERT INTO public.delivery_cursors AS c" +
+            " (user_id, last_created_at, last_message_id, updated_at) VALUES (?, ?, ?, ?)" +
+            " ON CONFLICT (user_id) DO UPDATE SET last_created_at = EXCLUDED.last_created_at," +
+            " last_message_id = EXCLUDED.last_message_id, updated_at = EXCLUDED.updated_at" +
+            " WHERE (EXCLUDED.last_created_at, EXCLUDED.last_message_id) > (c.last_created_at, c.last_message_id)";
+
+    private Cache<UUID, MessageCursor> cursors;
+
+    private final Map<UUID, MessageCursor> dirty = new ConcurrentHashMap<>();
+
+    // Highest position acks may reach per user while a replay is pending
+    private final Map<UUID, MessageCursor> replayLimits = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        cursors = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "delivery-cursor-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * Get the user's cursor, or null if the user never had one
+     */
+    public MessageCursor getCursor(UUID userId) {
+        MessageCursor cursor = cursors.getIfPresent(userId);
+        if (cursor != null) {
+            return cursor;
+        }
+        // An unflushed ack can be newer than the stored cursor once its cache entry expired
+        MessageCursor loaded = deliveryCursorRepository.findById(userId)
+                .map(stored -> new MessageCursor(stored.getLastCreatedAt(), stored.getLastMessageId()))
+                .orElse(null);
+        MessageCursor pending = dirty.get(userId);
+        if (pending != null) {
+            loaded = loaded == null ? pending : later(loaded, pending);
+        }
+        return loaded == null ? null : cursors.asMap().merge(userId, loaded, DeliveryCursorService::later);
+    }
+
+    /**
+     * Move the user's cursor forward; older positions are ignored
+     */
+    public void advance(UUID userId, MessageCursor position) {
+        if (position == null || position.createdAt() == null || position.id() == null) {
+            return;
+        }
+        MessageCursor limit = replayLimits.get(userId);
+        if (limit != null && position.compareTo(limit) > 0) {
+            if (limit == NOTHING_REPLAYED) {
+                return;
+            }
+            position = limit;
+        }
+        MessageCursor updated = cursors.asMap().merge(userId, position, DeliveryCursorService::later);
+        if (updated == position) {
+            dirty.merge(userId, position, DeliveryCursorService::later);
+        }
+    }
+
+    /**
+     * A replay for the user is starting: hold acks back until messages are replayed
+     */
+    public void beginReplay(UUID userId) {
+        replayLimits.put(userId, NOTHING_REPLAYED);
+    }
+
+    /**
+     * Messages up to the given position were replayed, acks may now reach it
+     */
+    public void replayedTo(UUID userId, MessageCursor position) {
+        replayLimits.computeIfPresent(userId, (id, limit) -> limit == NOTHING_REPLAYED ? position : later(limit, position));
+    }
+
+    /**
+     * The replay reached the subscription time: live delivery is contiguous from here on.
+     * A replay that stopped early leaves the limit in place until the next one begins,
+     * so the messages it did not reach are replayed on the next reconnect.
+     */
+    public void endReplay(UUID userId) {
+        replayLimits.remove(userId);
+    }
+
+    private void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (UUID userId : new ArrayList<>(dirty.keySet())) {
+            MessageCursor cursor = dirty.remove(userId);
+            if (cursor != null) {
+                batch.add(new Object[] {userId, cursor.createdAt(), cursor.id(), now});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT, batch);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to persist {} delivery cursors, retrying next flush", batch.size(), e);
+            for (Object[] row : batch) {
+                dirty.merge((UUID) row[0], new MessageCursor((Long) row[1], (UUID) row[2]), DeliveryCursorService::later);
+            }
+        }
+    }
+
+    private static MessageCursor later(MessageCursor current, MessageCursor candidate) {
+        return candidate.compareTo(current) > 0 ? candidate : current;
+    }
+}
@@ -0,0 +1,104 @@
+package com.chatty.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams whole tables to the response with constant heap use.
+ * <p>
+ * Rows are read through a forward-only cursor (repository streamAll methods) inside a read-only
+ * transaction, converted in chunks and written to the response as they arrive, either as
+ * NDJSON (one object per line) or as a single JSON array. The persistence context is cleared
+ * after every chunk so loaded entities do not accumulate.
+ */
+@Service
+public class ExportService {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T> StreamingResponseBody export(Supplier<Stream<T>> query, boolean ndjson) {
+        return export(query, Function.identity(), ndjson);
+    }
+
+    /**
+     * @param query      opens the cursor, called inside the export transaction
+     * @param chunkMapper converts each chunk of rows to the objects written to the response
+     * @param ndjson     true for newline-delimited JSON, false for a JSON array
+     */
+    public <T, R> StreamingResponseBody export(Supplier<Stream<T>> query,
+                                               Function<List<T>, List<R>> chunkMapper,
+                                               boolean ndjson) {
+        return outputStream -> {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            try {
+                readOnly.executeWithoutResult(status -> write(query, chunkMapper, ndjson, outputStream));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private <T, R> void write(Supplier<Stream<T>> query, Function<List<T>, List<R>> chunkMapper,
+                              boolean ndjson, OutputStream outputStream) {
+        try (Stream<T> rows = query.get();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+
+            List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    for (R item : chunkMapper.apply(chunk)) {
+                        generator.writeObject(item);
+                    }
+                    generator.flush();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+
+            if (ndjson) {
+                generator.writeRaw('\n');
+            } else {
+                generator.writeEndArray();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
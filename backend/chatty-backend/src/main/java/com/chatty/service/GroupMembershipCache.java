@@ -0,0 +1,81 @@
+package com.chatty.service;
+
+import com.chatty.event.GroupMembershipChangedEvent;
+import com.chatty.repository.GroupMemberRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cached member list per group, so fanning a message out to a group costs no database reads.
+ * <p>
+ * Entries are loaded on first use, bounded by chatty.groups.cache.max-size and dropped on every
+ * {@link GroupMembershipChangedEvent}, published after the change has committed and relayed to the
+ * other nodes. Entries also expire after chatty.groups.cache.ttl, in case a relayed change is lost. Loads run on their own virtual threads, outside the cache's map locks, and concurrent
+ * readers of a group share one load. An invalidation that races with a load discards its result.
+ */
+@Service
+public class GroupMembershipCache {
+
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+
+    @Value("${chatty.groups.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${chatty.groups.cache.ttl:5m}")
+    private Duration ttl;
+
+    private final ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private AsyncLoadingCache<UUID, List<UUID>> members;
+
+    @PostConstruct
+    public void init() {
+        members = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .executor(loaders)
+                .buildAsync(groupId -> List.copyOf(groupMemberRepository.findUserIdsByGroupId(groupId)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loaders.shutdown();
+    }
+
+    /**
+     * Get the member ids of a group (empty if the group has no members or does not exist)
+     */
+    public List<UUID> getMembers(UUID groupId) {
+        return members.get(groupId).join();
+    }
+
+    public boolean isMember(UUID groupId, UUID userId) {
+        return getMembers(groupId).contains(userId);
+    }
+
+    @EventListener
+    public void onMembershipChanged(GroupMembershipChangedEvent event) {
+        invalidate(event.groupId());
+    }
+
+    public void invalidate(UUID groupId) {
+        members.synchronous().invalidate(groupId);
+    }
+
+    public long size() {
+        return members.synchronous().estimatedSize();
+    }
+}
@@ -0,0 +1,99 @@
+package com.chatty.service;
+
+import com.chatty.entity.ChatGroup;
+import com.chatty.entity.GroupMember;
+import com.chatty.event.GroupMembershipChangedEvent;
+import com.chatty.repository.ChatGroupRepository;
+import com.chatty.repository.GroupMemberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+public class GroupService {
+
+    @Autowired
+    private ChatGroupRepository chatGroupRepository;
+
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+
+    @Autowired
+    private GroupMembershipCache membershipCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Create a group; the creator is always a member
+     */
+    public ChatGroup createGroup(String name, UUID createdBy, List<UUID> memberIds) {
+        Set<UUID> members = new LinkedHashSet<>();
+        members.add(createdBy);
+        if (memberIds != null) {
+            members.addAll(memberIds);
+        }
+
+        ChatGroup savedGroup = transactionTemplate.execute(status -> {
+            ChatGroup group = chatGroupRepository.save(ChatGroup.builder().name(name).createdBy(createdBy).build());
+            groupMemberRepository.saveAll(members.stream()
+                    .map(userId -> GroupMember.builder().groupId(group.getId()).userId(userId).build())
+                    .toList());
+            return group;
+        });
+        membershipChanged(savedGroup.getId());
+        return savedGroup;
+    }
+
+    /**
+     * Add a user to a group
+     * @return false if the user already is a member
+     */
+    public boolean addMember(UUID groupId, UUID userId) {
+        if (groupMemberRepository.existsByGroupIdAndUserId(groupId, userId)) {
+            return false;
+        }
+        groupMemberRepository.save(GroupMember.builder().groupId(groupId).userId(userId).build());
+        membershipChanged(groupId);
+        return true;
+    }
+
+    /**
+     * Remove a user from a group
+     * @return false if the user was not a member
+     */
+    public boolean removeMember(UUID groupId, UUID userId) {
+        int deleted = groupMemberRepository.deleteByGroupIdAndUserId(groupId, userId);
+        membershipChanged(groupId);
+        return deleted > 0;
+    }
+
+    /**
+     * Delete a group and its memberships
+     */
+    public void deleteGroup(UUID groupId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            groupMemberRepository.deleteByGroupId(groupId);
+            chatGroupRepository.deleteById(groupId);
+        });
+        membershipChanged(groupId);
+    }
+
+    public List<UUID> getMembers(UUID groupId) {
+        return membershipCache.getMembers(groupId);
+    }
+
+    // Drops the cached members on this node and, through the cluster relay, on the others
+    private void membershipChanged(UUID groupId) {
+        eventPublisher.publishEvent(new GroupMembershipChangedEvent(groupId, false));
+    }
+}
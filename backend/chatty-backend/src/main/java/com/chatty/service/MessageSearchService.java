@@ -0,0 +1,101 @@
+package com.chatty.service;
+
+import com.chatty.dto.MessageSearchPageDTO;
+import com.chatty.entity.Message;
+import com.chatty.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Full-text search over message text.
+ * The index is a Postgres GIN index on to_tsvector('simple', text), so it is maintained by the
+ * database on every insert and update (including soft deletes, which the query filters out) and
+ * is shared by all nodes. The 'simple' configuration lowercases without stemming, which suits
+ * mixed-language chat.
+ */
+@Service
+public class MessageSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchService.class);
+
+    public static final String INDEX_NAME = "idx_messages_text_fts";
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // CONCURRENTLY keeps inserts flowing while the index builds; it cannot run inside a transaction
+    private static final String CREATE_INDEX = "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + INDEX_NAME +
+            " ON public.messages USING gin (to_tsvector('simple', coalesce(text, '')))";
+
+    private static final String INDEX_VALID = "SELECT i.indisvalid FROM pg_index i" +
+            " JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ?";
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${chatty.search.create-index:true}")
+    private boolean createIndex;
+
+    /**
+     * Make sure the search index exists (the schema is not managed by Hibernate).
+     * Runs on an autocommit connection, outside any transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        if (!createIndex) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute(CREATE_INDEX);
+            // A failed concurrent build leaves an invalid index that IF NOT EXISTS then skips
+            List<Boolean> valid = jdbcTemplate.queryForList(INDEX_VALID, Boolean.class, INDEX_NAME);
+            if (valid.contains(Boolean.FALSE)) {
+                logger.warn("Message search index {} is invalid or still being built by another node;"
+                        + " rebuild it (POST /api/messages/search/reindex) if it stays invalid", INDEX_NAME);
+            }
+        } catch (Exception e) {
+            // Search still works without the index, just with a sequential scan
+            logger.warn("Could not create message search index {}: {}", INDEX_NAME, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the search index from the messages table without blocking writes
+     */
+    public void rebuildIndex() {
+        jdbcTemplate.execute(CREATE_INDEX);
+        jdbcTemplate.execute("REINDEX INDEX CONCURRENTLY public." + INDEX_NAME);
+        logger.info("Rebuilt message search index {}", INDEX_NAME);
+    }
+
+    /**
+     * Search the user's conversations, best match first
+     * @param page zero-based page number
+     * @param size page size, capped at MAX_PAGE_SIZE
+     */
+    public MessageSearchPageDTO search(UUID userId, String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        // Fetch one extra row to know whether there is another page
+        List<Message> rows = messageRepository.searchForUser(
+                userId, query.trim(), pageSize + 1, pageNumber * pageSize);
+        boolean hasMore = rows.size() > pageSize;
+        return MessageSearchPageDTO.builder()
+                .messages(hasMore ? rows.subList(0, pageSize) : rows)
+                .page(pageNumber)
+                .size(pageSize)
+                .hasMore(hasMore)
+                .build();
+    }
+}
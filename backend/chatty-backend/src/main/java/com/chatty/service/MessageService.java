@@ -0,0 +1,214 @@
+package com.chatty.service;
+
+import com.chatty.dto.MessageCursor;
+import com.chatty.dto.MessagePageDTO;
+import com.chatty.entity.Message;
+import com.chatty.event.MessageRemovedEvent;
+import com.chatty.event.MessageSavedEvent;
+import com.chatty.id.Ids;
+import com.chatty.metrics.MessageMetrics;
+import com.chatty.repository.MessageRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class MessageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // Same order as the database, see MessageCursor.compareIds
+    private static final Comparator<Message> CHRONOLOGICAL =
+            Comparator.comparing(Message::getCreatedAt).thenComparing(Message::getId, MessageCursor::compareIds);
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Persist a message and notify listeners (long-poll waiters, etc.)
+     */
+    public Message saveMessage(Message message) {
+        Message savedMessage = messageMetrics.persist().record(() -> messageRepository.save(message));
+        eventPublisher.publishEvent(new MessageSavedEvent(savedMessage));
+        return savedMessage;
+    }
+
+    /**
+     * Soft delete a message (set isDeleted = true) and notify listeners
+     * @return the updated message, empty if it does not exist
+     */
+    public Optional<Message> softDeleteMessage(UUID id) {
+        Optional<Message> optionalMessage = messageRepository.findById(id);
+        if (optionalMessage.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Message message = optionalMessage.get();
+        if (Boolean.TRUE.equals(message.getIsDeleted())) {
+            return Optional.of(message);
+        }
+        message.setIsDeleted(true);
+        Message updatedMessage = messageRepository.save(message);
+        eventPublisher.publishEvent(new MessageRemovedEvent(updatedMessage));
+        return Optional.of(updatedMessage);
+    }
+
+    /**
+     * Delete a message permanently and notify listeners
+     * @return false if the message does not exist
+     */
+    public boolean deleteMessage(UUID id) {
+        Optional<Message> optionalMessage = messageRepository.findById(id);
+        if (optionalMessage.isEmpty()) {
+            return false;
+        }
+
+        Message message = optionalMessage.get();
+        messageRepository.deleteById(id);
+        if (!Boolean.TRUE.equals(message.getIsDeleted())) {
+            eventPublisher.publishEvent(new MessageRemovedEvent(message));
+        }
+        return true;
+    }
+
+    /**
+     * Assign id and server timestamp up front so a message can be delivered before it is persisted
+     */
+    public Message prepareMessage(Message message) {
+        if (message.getId() == null) {
+            message.setId(Ids.next());
+        }
+        if (message.getCreatedAt() == null) {
+            message.setCreatedAt(System.currentTimeMillis());
+        }
+        return message;
+    }
+
+    /**
+     * Insert new, already prepared messages in one transaction.
+     * Uses persist rather than save so assigned ids do not trigger a select per row,
+     * letting Hibernate send them as JDBC batches (hibernate.jdbc.batch_size).
+     * Listeners are notified only after the transaction commits. A listener failure is logged
+     * and does not propagate: only a failed commit throws, so callers never retry committed rows.
+     */
+    public void saveAllNew(List<Message> messages) {
+        messageMetrics.persist().record(() ->
+                transactionTemplate.executeWithoutResult(status -> messages.forEach(entityManager::persist)));
+        for (Message message : messages) {
+            try {
+                eventPublisher.publishEvent(new MessageSavedEvent(message));
+            } catch (RuntimeException e) {
+                logger.warn("Listener failed for saved message {}", message.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Get one page of the conversation between two users using a (createdAt, id) cursor.
+     * Each direction of the conversation is read with its own bounded index range scan
+     * and the two results are merged, so the cost depends on the page size only.
+     *
+     * @param cursor cursor returned by a previous page, or null to start from the newest
+     *               message (older) or the oldest message (newer)
+     * @param older true to page backward in time, false to page forward
+     */
+    public MessagePageDTO getConversationPage(UUID user1, UUID user2, String cursor, int size, boolean older) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row per direction to know whether another page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        MessageCursor position = cursor != null && !cursor.isEmpty() ? MessageCursor.parse(cursor) : null;
+
+        List<Message> merged = new ArrayList<>();
+        merged.addAll(fetchDirection(user1, user2, position, older, limit));
+        merged.addAll(fetchDirection(user2, user1, position, older, limit));
+        merged.sort(older ? CHRONOLOGICAL.reversed() : CHRONOLOGICAL);
+        return toPage(merged, pageSize, older);
+    }
+
+    /**
+     * Get one page of a group conversation using a (createdAt, id) cursor, like
+     * {@link #getConversationPage(UUID, UUID, String, int, boolean)}. One bounded index range scan per page.
+     */
+    public MessagePageDTO getGroupPage(UUID groupId, String cursor, int size, boolean older) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        MessageCursor position = cursor != null && !cursor.isEmpty() ? MessageCursor.parse(cursor) : null;
+
+        List<Message> rows;
+        if (position == null) {
+            rows = older
+                    ? messageRepository.findLatestInGroup(groupId, limit)
+                    : messageRepository.findInGroupAfter(groupId, Long.MIN_VALUE, new UUID(0L, 0L), limit);
+        } else if (older) {
+            rows = messageRepository.findInGroupBefore(groupId, position.createdAt(), position.id(), limit);
+        } else {
+            rows = messageRepository.findInGroupAfter(groupId, position.createdAt(), position.id(), limit);
+        }
+        return toPage(rows, pageSize, older);
+    }
+
+    /**
+     * Build a page from rows in paging order with up to one extra row
+     */
+    private static MessagePageDTO toPage(List<Message> rows, int pageSize, boolean older) {
+        boolean hasMore = rows.size() > pageSize;
+        List<Message> page = new ArrayList<>(rows.subList(0, Math.min(pageSize, rows.size())));
+
+        String nextCursor = null;
+        if (hasMore) {
+            Message last = page.get(page.size() - 1);
+            nextCursor = new MessageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        if (older) {
+            Collections.reverse(page);
+        }
+
+        return MessagePageDTO.builder()
+                .messages(page)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private List<Message> fetchDirection(UUID sender, UUID receiver, MessageCursor position, boolean older, Pageable limit) {
+        if (position == null) {
+            if (older) {
+                return messageRepository.findLatestInDirection(sender, receiver, limit);
+            }
+            // Start of the conversation: everything after the smallest possible cursor
+            return messageRepository.findInDirectionAfter(sender, receiver, Long.MIN_VALUE, new UUID(0L, 0L), limit);
+        }
+        if (older) {
+            return messageRepository.findInDirectionBefore(sender, receiver, position.createdAt(), position.id(), limit);
+        }
+        return messageRepository.findInDirectionAfter(sender, receiver, position.createdAt(), position.id(), limit);
+    }
+}
@@ -0,0 +1,187 @@
+package com.chatty.service;
+
+import com.chatty.entity.Message;
+import com.chatty.metrics.MessageMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind persistence for WebSocket messages.
+ * Messages are queued in a bounded buffer and inserted by a single flusher thread
+ * in JDBC-sized batches. The onPersisted callback of each message runs only after
+ * its batch has committed.
+ */
+@Service
+public class MessageWriteBehindQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBehindQueue.class);
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @Value("${chatty.messages.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chatty.messages.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${chatty.messages.write-behind.offer-timeout-ms:500}")
+    private long offerTimeoutMs;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}")
+    private int batchSize;
+
+    private BlockingQueue<PendingMessage> queue;
+
+    private Thread flusher;
+
+    // Enqueues hold the read lock while they offer; shutdown takes the write lock to stop accepting,
+    // so no offer can land after the flusher has drained the queue and exited
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    // Guarded by acceptLock
+    private boolean accepting;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        accepting = true;
+        running = true;
+        flusher = new Thread(this::runFlusher, "message-write-behind");
+        flusher.start();
+        logger.info("Message write-behind enabled: capacity={}, batchSize={}", capacity, batchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a prepared message for persistence.
+     * Blocks for up to the offer timeout when the queue is full (backpressure on the caller).
+     *
+     * @return false if the message was not accepted, the caller must persist it itself
+     */
+    public boolean enqueue(Message message, Runnable onPersisted) {
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                return false;
+            }
+            return queue.offer(new PendingMessage(message, onPersisted), offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of messages waiting to be persisted
+     */
+    public int depth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        // Stop accepting once in-flight offers are done, the flusher drains what is left before exiting
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.error("Write-behind shutdown timed out with {} unpersisted messages", queue.size());
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Whatever accumulated while the previous batch was in flight goes out together
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in write-behind flusher", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message());
+        }
+        try {
+            messageService.saveAllNew(messages);
+            batch.forEach(this::acknowledge);
+        } catch (RuntimeException e) {
+            logger.warn("Batch insert of {} messages failed, retrying individually", messages.size(), e);
+            // Isolate the failing row(s) so one bad message does not lose the whole batch
+            for (PendingMessage pending : batch) {
+                try {
+                    messageService.saveAllNew(List.of(pending.message()));
+                    acknowledge(pending);
+                } catch (RuntimeException rowError) {
+                    logger.error("Dropping message {}: {}", pending.message().getId(), rowError.getMessage());
+                    messageMetrics.dropped("persist_failed");
+                }
+            }
+        }
+    }
+
+    private void acknowledge(PendingMessage pending) {
+        try {
+            pending.onPersisted().run();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to acknowledge message {}", pending.message().getId(), e);
+        }
+    }
+
+    private record PendingMessage(Message message, Runnable onPersisted) {
+    }
+}
@@ -0,0 +1,346 @@
+package com.chatty.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Undirected contact graph over dense int ids, for mutual-contact counts and friend suggestions.
+ * <p>
+ * Every user seen is interned to an int; each user's contacts are a sorted int array, so a mutual
+ * count is a merge of two arrays and a suggestion pass touches only friends of friends, counting
+ * them in a primitive open-addressing table. Nothing is boxed on the read path.
+ * <p>
+ * One writer at a time (updates are synchronized), any number of readers without locking: each row
+ * array is immutable once published, and rows and user ids are stored in AtomicReferenceArrays, so a
+ * reader sees each row either before or after an update, and a user's id is visible before any row
+ * that contains it. Growing replaces both tables with copies before the new id is used.
+ */
+public class MutualContactIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<UUID, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile AtomicReferenceArray<UUID> users = new AtomicReferenceArray<>(1024);
+
+    private volatile AtomicReferenceArray<int[]> rows = new AtomicReferenceArray<>(1024);
+
+    private volatile int size;
+
+    /**
+     * A suggested user and the number of contacts they share with the user asking
+     */
+    public record Suggestion(UUID userId, int mutualContacts) {
+    }
+
+    public synchronized void addEdge(UUID a, UUID b) {
+        if (a.equals(b)) {
+            return;
+        }
+        int x = intern(a);
+        int y = intern(b);
+        AtomicReferenceArray<int[]> current = rows;
+        current.set(x, insert(row(current, x), y));
+        current.set(y, insert(row(current, y), x));
+    }
+
+    public synchronized void removeEdge(UUID a, UUID b) {
+        Integer x = ids.get(a);
+        Integer y = ids.get(b);
+        if (x == null || y == null) {
+            return;
+        }
+        AtomicReferenceArray<int[]> current = rows;
+        current.set(x, delete(row(current, x), y));
+        current.set(y, delete(row(current, y), x));
+    }
+
+    /**
+     * Users that have an edge with the user in either direction
+     */
+    public List<UUID> contactsOf(UUID userId) {
+        Integer x = ids.get(userId);
+        if (x == null) {
+            return List.of();
+        }
+        return toUuids(row(rows, x));
+    }
+
+    public int mutualCount(UUID a, UUID b) {
+        Integer x = ids.get(a);
+        Integer y = ids.get(b);
+        if (x == null || y == null) {
+            return 0;
+        }
+        AtomicReferenceArray<int[]> current = rows;
+        return intersect(row(current, x), row(current, y), null);
+    }
+
+    public List<UUID> mutualContacts(UUID a, UUID b) {
+        Integer x = ids.get(a);
+        Integer y = ids.get(b);
+        if (x == null || y == null) {
+            return List.of();
+        }
+        AtomicReferenceArray<int[]> current = rows;
+        int[] left = row(current, x);
+        int[] right = row(current, y);
+        int[] shared = new int[Math.min(left.length, right.length)];
+        int count = intersect(left, right, shared);
+        return toUuids(Arrays.copyOf(shared, count));
+    }
+
+    /**
+     * Friends of friends who are not contacts yet, ranked by mutual contacts (ties by interning order)
+     */
+    public List<Suggestion> suggest(UUID userId, int limit) {
+        Integer self = ids.get(userId);
+        if (self == null || limit <= 0) {
+            return List.of();
+        }
+        AtomicReferenceArray<int[]> current = rows;
+        int[] mine = row(current, self);
+        if (mine.length == 0) {
+            return List.of();
+        }
+
+        long reach = 0;
+        for (int friend : mine) {
+            reach += row(current, friend).length;
+        }
+        IntCounter counts = new IntCounter((int) Math.min(reach, 1 << 16));
+        for (int friend : mine) {
+            for (int candidate : row(current, friend)) {
+                if (candidate != self) {
+                    counts.increment(candidate);
+                }
+            }
+        }
+
+        // Min-heap of (count << 32 | MAX - id): the root is the weakest of the best `limit` so far
+        long[] heap = new long[limit];
+        int heapSize = 0;
+        for (int slot = 0; slot < counts.keys.length; slot++) {
+            int candidate = counts.keys[slot];
+            if (candidate < 0 || Arrays.binarySearch(mine, candidate) >= 0) {
+                continue;
+            }
+            long key = ((long) counts.values[slot] << 32) | (Integer.MAX_VALUE - candidate);
+            if (heapSize < limit) {
+                heap[heapSize] = key;
+                siftUp(heap, heapSize++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        long[] ranked = Arrays.copyOf(heap, heapSize);
+        Arrays.sort(ranked);
+        // Read after the rows: every id found in them is already in this table
+        AtomicReferenceArray<UUID> names = users;
+        List<Suggestion> suggestions = new ArrayList<>(heapSize);
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            int candidate = Integer.MAX_VALUE - (int) ranked[i];
+            suggestions.add(new Suggestion(names.get(candidate), (int) (ranked[i] >>> 32)));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Number of users interned so far
+     */
+    public int size() {
+        return size;
+    }
+
+    private int intern(UUID userId) {
+        Integer existing = ids.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        if (id == rows.length()) {
+            users = grow(users, id * 2);
+            rows = grow(rows, id * 2);
+        }
+        users.set(id, userId);
+        rows.set(id, EMPTY);
+        // Published after the user and row, so a reader that finds the id also finds both
+        ids.put(userId, id);
+        size = id + 1;
+        return id;
+    }
+
+    private List<UUID> toUuids(int[] row) {
+        AtomicReferenceArray<UUID> names = users;
+        List<UUID> result = new ArrayList<>(row.length);
+        for (int id : row) {
+            result.add(names.get(id));
+        }
+        return result;
+    }
+
+    private static <T> AtomicReferenceArray<T> grow(AtomicReferenceArray<T> table, int capacity) {
+        AtomicReferenceArray<T> grown = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < table.length(); i++) {
+            grown.set(i, table.get(i));
+        }
+        return grown;
+    }
+
+    private static int[] row(AtomicReferenceArray<int[]> rows, int id) {
+        int[] row = rows.get(id);
+        return row != null ? row : EMPTY;
+    }
+
+    private static int[] insert(int[] row, int value) {
+        int position = Arrays.binarySearch(row, value);
+        if (position >= 0) {
+            return row;
+        }
+        position = -position - 1;
+        int[] grown = new int[row.length + 1];
+        System.arraycopy(row, 0, grown, 0, position);
+        grown[position] = value;
+        System.arraycopy(row, position, grown, position + 1, row.length - position);
+        return grown;
+    }
+
+    private static int[] delete(int[] row, int value) {
+        int position = Arrays.binarySearch(row, value);
+        if (position < 0) {
+            return row;
+        }
+        int[] shrunk = new int[row.length - 1];
+        System.arraycopy(row, 0, shrunk, 0, position);
+        System.arraycopy(row, position + 1, shrunk, position, row.length - position - 1);
+        return shrunk;
+    }
+
+    /**
+     * Merge-intersect two sorted rows; writes the shared ids into out when it is not null
+     */
+    private static int intersect(int[] left, int[] right, int[] out) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[count] = left[i];
+                }
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+
+    /**
+     * int -> count table with linear probing; empty slots hold key -1
+     */
+    private static final class IntCounter {
+
+        private int[] keys;
+
+        private int[] values;
+
+        private int used;
+
+        IntCounter(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, -1);
+        }
+
+        void increment(int key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (true) {
+                int existing = keys[slot];
+                if (existing == key) {
+                    values[slot]++;
+                    return;
+                }
+                if (existing < 0) {
+                    keys[slot] = key;
+                    values[slot] = 1;
+                    if (++used * 2 > keys.length) {
+                        grow();
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private static int slot(int key, int mask) {
+            int mixed = key * 0x9E3779B9;
+            return (mixed ^ (mixed >>> 16)) & mask;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (keys[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.chatty.service;
+
+import com.chatty.cluster.ClusterRouter;
+import com.chatty.dto.MessageCursor;
+import com.chatty.entity.Message;
+import com.chatty.repository.MessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays messages a user missed while offline.
+ * <p>
+ * When a session subscribes to /queue/messages/{userId}, messages received after the user's
+ * delivery cursor are streamed to that session only, in batches shaped like live deliveries
+ * (a JSON array of messages). The cost of a reconnect is proportional to the number of missed
+ * messages, not to the size of the history. Replay runs on a small dedicated pool so it never
+ * holds more than chatty.delivery.replay-threads database connections.
+ * <p>
+ * Replay stops at the time of the subscription: newer messages reach the session through live
+ * delivery, so they are not sent twice. Clients still dedupe by id, as a message created in the same
+ * instant as the subscription may arrive both ways. Until the replay is complete, acks only move the
+ * cursor as far as the replayed messages (see {@link DeliveryCursorService#beginReplay(UUID)}).
+ */
+@Service
+public class OfflineReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineReplayService.class);
+
+    private static final String USER_QUEUE_PREFIX = "/queue/messages/";
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private DeliveryCursorService deliveryCursorService;
+
+    @Autowired
+    private ClusterRouter clusterRouter;
+
+    @Autowired
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    @Value("${chatty.delivery.replay-batch-size:100}")
+    private int batchSize;
+
+    @Value("${chatty.delivery.replay-max-messages:5000}")
+    private int maxMessages;
+
+    @Value("${chatty.delivery.replay-threads:2}")
+    private int replayThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(replayThreads, replayThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "offline-replay"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A session subscribed; replays missed messages if it is a user queue
+     */
+    public void onSubscribe(String sessionId, String subscriptionId, String destination) {
+        if (destination == null || !destination.startsWith(USER_QUEUE_PREFIX) || subscriptionId == null) {
+            return;
+        }
+        UUID userId;
+        try {
+            userId = UUID.fromString(destination.substring(USER_QUEUE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        // High-water mark: the session is registered for live delivery from here on
+        long subscribedAt = System.currentTimeMillis();
+        // Before the replay is queued, live messages may be acked as soon as the subscription is registered
+        deliveryCursorService.beginReplay(userId);
+        executor.execute(() -> replay(userId, sessionId, subscriptionId, destination, subscribedAt));
+    }
+
+    private void replay(UUID userId, String sessionId, String subscriptionId, String destination, long subscribedAt) {
+        MessageCursor cursor = deliveryCursorService.getCursor(userId);
+        if (cursor == null) {
+            // First connection: start tracking from now, history is loaded through the REST API
+            deliveryCursorService.endReplay(userId);
+            deliveryCursorService.advance(userId, new MessageCursor(subscribedAt, new UUID(0L, 0L)));
+            return;
+        }
+
+        int replayed = 0;
+        boolean complete = false;
+        try {
+            while (replayed < maxMessages) {
+                List<Message> batch = messageRepository.findReceivedBetween(
+                        userId, cursor.createdAt(), cursor.id(), subscribedAt, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    complete = true;
+                    break;
+                }
+                if (!sendToSession(sessionId, subscriptionId, destination, batch)) {
+                    break;
+                }
+                replayed += batch.size();
+
+                Message last = batch.get(batch.size() - 1);
+                cursor = new MessageCursor(last.getCreatedAt(), last.getId());
+                deliveryCursorService.replayedTo(userId, cursor);
+                if (batch.size() < batchSize) {
+                    complete = true;
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Replay for user {} stopped after {} messages", userId, replayed, e);
+        }
+        if (complete) {
+            deliveryCursorService.endReplay(userId);
+        } else if (replayed >= maxMessages) {
+            logger.info("Replay for user {} stopped at the limit of {} messages, the rest is replayed on the next reconnect",
+                    userId, maxMessages);
+        }
+        if (replayed > 0) {
+            logger.debug("Replayed {} missed messages to user {} (session {})", replayed, userId, sessionId);
+        }
+    }
+
+    private boolean sendToSession(String sessionId, String subscriptionId, String destination, List<Message> batch) {
+        byte[] encoded = clusterRouter.encode(batch);
+        if (encoded == null) {
+            return false;
+        }
+        // Straight to the outbound channel so only the reconnecting session receives the replay
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return clientOutboundChannel.send(MessageBuilder.createMessage(encoded, accessor.getMessageHeaders()));
+    }
+}
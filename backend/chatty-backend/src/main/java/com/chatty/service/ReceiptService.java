@@ -0,0 +1,147 @@
+package com.chatty.service;
+
+import com.chatty.cluster.ClusterRouter;
+import com.chatty.dto.MessageCursor;
+import com.chatty.dto.ReceiptAckDTO;
+import com.chatty.dto.ReceiptDTO;
+import com.chatty.enums.ReceiptType;
+import com.chatty.repository.ConversationSummaryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivered and read receipts, coalesced per (reader, conversation).
+ * <p>
+ * Clients ack every message they display; the acks only move an in-memory high watermark.
+ * Every chatty.receipts.flush-ms the pending watermarks are written in one transaction (one
+ * conversation_summaries update per conversation, not one write per message) and the sender
+ * gets a single consolidated {@link ReceiptDTO} on /queue/receipts/{sender}.
+ */
+@Service
+public class ReceiptService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptService.class);
+
+    @Autowired
+    private ConversationSummaryRepository summaryRepository;
+
+    @Autowired
+    private ConversationSummaryService conversationSummaryService;
+
+    @Autowired
+    private ClusterRouter clusterRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${chatty.receipts.flush-ms:1000}")
+    private long flushIntervalMs;
+
+    private final Map<ReceiptKey, Watermarks> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "receipt-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * Record that the reader got (or read) every message from the peer up to the given position
+     */
+    public void acknowledge(UUID readerId, UUID peerId, ReceiptAckDTO ack) {
+        if (ack == null || ack.type() == null || ack.createdAt() == null || ack.id() == null
+                || readerId.equals(peerId)) {
+            return;
+        }
+        MessageCursor position = new MessageCursor(ack.createdAt(), ack.id());
+        Watermarks update = ack.type() == ReceiptType.READ
+                ? new Watermarks(position, position)
+                : new Watermarks(position, null);
+        pending.merge(new ReceiptKey(readerId, peerId), update, Watermarks::merge);
+    }
+
+    /**
+     * Number of conversations with receipts waiting for the next flush
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<ReceiptKey, Watermarks> batch = new LinkedHashMap<>();
+        for (ReceiptKey key : new ArrayList<>(pending.keySet())) {
+            Watermarks watermarks = pending.remove(key);
+            if (watermarks != null) {
+                batch.put(key, watermarks);
+            }
+        }
+
+        if (conversationSummaryService.isEnabled()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach((key, watermarks) ->
+                        summaryRepository.applyReceipts(key.reader(), key.peer(),
+                                timestamp(watermarks.delivered()), timestamp(watermarks.read()))));
+            } catch (RuntimeException e) {
+                // Receipts are idempotent high watermarks, the next ack from the client catches up
+                logger.warn("Failed to persist receipts for {} conversations", batch.size(), e);
+            }
+        }
+
+        batch.forEach((key, watermarks) -> clusterRouter.deliverToUser(key.peer(), ClusterRouter.RECEIPT_QUEUE_PREFIX,
+                new ReceiptDTO(key.reader(), watermarks.delivered(), watermarks.read())));
+    }
+
+    private static long timestamp(MessageCursor cursor) {
+        return cursor == null ? 0L : cursor.createdAt();
+    }
+
+    private record ReceiptKey(UUID reader, UUID peer) {
+    }
+
+    private record Watermarks(MessageCursor delivered, MessageCursor read) {
+
+        Watermarks merge(Watermarks other) {
+            return new Watermarks(later(delivered, other.delivered), later(read, other.read));
+        }
+
+        private static MessageCursor later(MessageCursor current, MessageCursor candidate) {
+            if (current == null) {
+                return candidate;
+            }
+            if (candidate == null) {
+                return current;
+            }
+            return candidate.compareTo(current) > 0 ? candidate : current;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.chatty.service;
+
+import com.chatty.entity.User;
+import com.chatty.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Read-through cache of user profiles, keyed by id with secondary lookups by username and email.
+ * <p>
+ * Profiles are bounded by chatty.users.cache.max-size and expire chatty.users.cache.ttl after
+ * loading. The username/email indexes only map to ids and are verified against the cached
+ * profile on read, so a stale index entry degrades to a miss. Callers must evict a user after
+ * changing or deleting it. Returned entities are shared: treat them as read-only.
+ */
+@Service
+public class UserProfileCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${chatty.users.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${chatty.users.cache.ttl:10m}")
+    private Duration ttl;
+
+    private Cache<UUID, User> byId;
+
+    private Cache<String, UUID> byUsername;
+
+    private Cache<String, UUID> byEmail;
+
+    @PostConstruct
+    public void init() {
+        byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        byUsername = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        byEmail = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+    }
+
+    public Optional<User> findById(UUID id) {
+        User cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    public Optional<User> findByUsername(String username) {
+        UUID id = byUsername.getIfPresent(username);
+        User cached = id != null ? byId.getIfPresent(id) : null;
+        if (cached != null && username.equals(cached.getUsername())) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        UUID id = byEmail.getIfPresent(email);
+        User cached = id != null ? byId.getIfPresent(id) : null;
+        if (cached != null && email.equals(cached.getEmail())) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findByEmail(email);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    /**
+     * Look up many users at once; only the ids not in the cache are loaded, in a single query
+     */
+    public Map<UUID, User> findAllById(Collection<UUID> ids) {
+        Map<UUID, User> users = new HashMap<>(byId.getAllPresent(ids));
+        if (users.size() < ids.size()) {
+            Set<UUID> missing = new HashSet<>(ids);
+            missing.removeAll(users.keySet());
+            for (User user : userRepository.findAllById(missing)) {
+                put(user);
+                users.put(user.getId(), user);
+            }
+        }
+        return users;
+    }
+
+    public void evict(UUID id) {
+        User cached = byId.getIfPresent(id);
+        byId.invalidate(id);
+        if (cached != null) {
+            byUsername.invalidate(cached.getUsername());
+            byEmail.invalidate(cached.getEmail());
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters of the id cache
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = byId.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", byId.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    private void put(User user) {
+        byId.put(user.getId(), user);
+        byUsername.put(user.getUsername(), user.getId());
+        byEmail.put(user.getEmail(), user.getId());
+    }
+}
@@ -0,0 +1,158 @@
+package com.chatty.wire;
+
+import com.chatty.entity.Message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of a message batch, the alternative to the JSON array of messages.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * u8      version (1)
+ * varint  message count
+ * per message:
+ *   u8      flags: 0x01 id, 0x02 sender, 0x04 receiver, 0x08 groupId, 0x10 createdAt, 0x20 text,
+ *                  0x40 isDeleted present, 0x80 isDeleted value
+ *   16 B    id, sender, receiver, groupId: each only if its flag is set, most significant half first
+ *   i64     createdAt in epoch milliseconds, if flagged
+ *   varint  text length in bytes, then the UTF-8 text, if flagged
+ * </pre>
+ * varint is unsigned LEB128. No field names and 16-byte instead of 36-character UUIDs: a short
+ * direct message is about a third of its JSON size.
+ */
+public final class CompactMessageCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int ID = 0x01;
+    private static final int SENDER = 0x02;
+    private static final int RECEIVER = 0x04;
+    private static final int GROUP = 0x08;
+    private static final int CREATED_AT = 0x10;
+    private static final int TEXT = 0x20;
+    private static final int DELETED_PRESENT = 0x40;
+    private static final int DELETED = 0x80;
+
+    private CompactMessageCodec() {
+    }
+
+    public static byte[] encode(List<Message> messages) {
+        byte[][] texts = new byte[messages.size()][];
+        int size = 1 + varintSize(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            size += 1 + 16 * (count(message.getId()) + count(message.getSender())
+                    + count(message.getReceiver()) + count(message.getGroupId()));
+            if (message.getCreatedAt() != null) {
+                size += 8;
+            }
+            if (message.getText() != null) {
+                texts[i] = message.getText().getBytes(StandardCharsets.UTF_8);
+                size += varintSize(texts[i].length) + texts[i].length;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        putVarint(buffer, messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            int flags = (message.getId() != null ? ID : 0)
+                    | (message.getSender() != null ? SENDER : 0)
+                    | (message.getReceiver() != null ? RECEIVER : 0)
+                    | (message.getGroupId() != null ? GROUP : 0)
+                    | (message.getCreatedAt() != null ? CREATED_AT : 0)
+                    | (texts[i] != null ? TEXT : 0)
+                    | (message.getIsDeleted() != null ? DELETED_PRESENT : 0)
+                    | (Boolean.TRUE.equals(message.getIsDeleted()) ? DELETED : 0);
+            buffer.put((byte) flags);
+            putUuid(buffer, message.getId());
+            putUuid(buffer, message.getSender());
+            putUuid(buffer, message.getReceiver());
+            putUuid(buffer, message.getGroupId());
+            if (message.getCreatedAt() != null) {
+                buffer.putLong(message.getCreatedAt());
+            }
+            if (texts[i] != null) {
+                putVarint(buffer, texts[i].length);
+                buffer.put(texts[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static List<Message> decode(byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact encoding version " + version);
+        }
+        int count = getVarint(buffer);
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int flags = buffer.get() & 0xFF;
+            Message message = new Message();
+            message.setId((flags & ID) != 0 ? getUuid(buffer) : null);
+            message.setSender((flags & SENDER) != 0 ? getUuid(buffer) : null);
+            message.setReceiver((flags & RECEIVER) != 0 ? getUuid(buffer) : null);
+            message.setGroupId((flags & GROUP) != 0 ? getUuid(buffer) : null);
+            message.setCreatedAt((flags & CREATED_AT) != 0 ? buffer.getLong() : null);
+            if ((flags & TEXT) != 0) {
+                byte[] text = new byte[getVarint(buffer)];
+                buffer.get(text);
+                message.setText(new String(text, StandardCharsets.UTF_8));
+            }
+            message.setIsDeleted((flags & DELETED_PRESENT) != 0 ? (flags & DELETED) != 0 : null);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static int count(UUID id) {
+        return id != null ? 1 : 0;
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        if (id != null) {
+            buffer.putLong(id.getMostSignificantBits());
+            buffer.putLong(id.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
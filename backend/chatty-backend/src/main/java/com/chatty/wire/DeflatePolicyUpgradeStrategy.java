@@ -0,0 +1,190 @@
+package com.chatty.wire;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.Decoder;
+import jakarta.websocket.Encoder;
+import jakarta.websocket.Extension;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies the permessage-deflate policy (RFC 7692) to WebSocket upgrades.
+ * <p>
+ * The container negotiates the extension with any client that offers it and then compresses every
+ * data frame. This strategy either removes it from the negotiation or, with context takeover off,
+ * answers with server_no_context_takeover and client_no_context_takeover: each message is then
+ * compressed on its own, with a worse ratio but without relying on the previous messages' window.
+ */
+public class DeflatePolicyUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final boolean enabled;
+
+    private final boolean contextTakeover;
+
+    public DeflatePolicyUpgradeStrategy(boolean enabled, boolean contextTakeover) {
+        this.enabled = enabled;
+        this.contextTakeover = contextTakeover;
+    }
+
+    @Override
+    protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                          ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+        super.upgradeHttpToWebSocket(request, response, new PolicyEndpointConfig(endpointConfig), pathParams);
+    }
+
+    /**
+     * The container's negotiated extensions with the policy applied
+     */
+    List<Extension> negotiate(List<Extension> negotiated) {
+        List<Extension> result = new ArrayList<>(negotiated.size());
+        for (Extension extension : negotiated) {
+            if (!PERMESSAGE_DEFLATE.equals(extension.getName())) {
+                result.add(extension);
+            } else if (enabled) {
+                result.add(contextTakeover ? extension : withoutContextTakeover(extension));
+            }
+        }
+        return result;
+    }
+
+    private static Extension withoutContextTakeover(Extension extension) {
+        List<Extension.Parameter> parameters = new ArrayList<>();
+        for (Extension.Parameter parameter : extension.getParameters()) {
+            if (!SERVER_NO_CONTEXT_TAKEOVER.equals(parameter.getName())
+                    && !CLIENT_NO_CONTEXT_TAKEOVER.equals(parameter.getName())) {
+                parameters.add(parameter);
+            }
+        }
+        parameters.add(new Flag(SERVER_NO_CONTEXT_TAKEOVER));
+        parameters.add(new Flag(CLIENT_NO_CONTEXT_TAKEOVER));
+        return new DeflateExtension(parameters);
+    }
+
+    private record DeflateExtension(List<Parameter> parameters) implements Extension {
+
+        @Override
+        public String getName() {
+            return PERMESSAGE_DEFLATE;
+        }
+
+        @Override
+        public List<Parameter> getParameters() {
+            return parameters;
+        }
+    }
+
+    private record Flag(String name) implements Extension.Parameter {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getValue() {
+            return null;
+        }
+    }
+
+    /**
+     * The endpoint config built for this upgrade, with the extension negotiation filtered by the policy
+     */
+    private class PolicyEndpointConfig implements ServerEndpointConfig {
+
+        private final ServerEndpointConfig delegate;
+
+        private final Configurator configurator;
+
+        PolicyEndpointConfig(ServerEndpointConfig delegate) {
+            this.delegate = delegate;
+            this.configurator = new PolicyConfigurator(delegate.getConfigurator());
+        }
+
+        @Override
+        public Class<?> getEndpointClass() {
+            return delegate.getEndpointClass();
+        }
+
+        @Override
+        public String getPath() {
+            return delegate.getPath();
+        }
+
+        @Override
+        public List<String> getSubprotocols() {
+            return delegate.getSubprotocols();
+        }
+
+        @Override
+        public List<Extension> getExtensions() {
+            return delegate.getExtensions();
+        }
+
+        @Override
+        public Configurator getConfigurator() {
+            return configurator;
+        }
+
+        @Override
+        public List<Class<? extends Encoder>> getEncoders() {
+            return delegate.getEncoders();
+        }
+
+        @Override
+        public List<Class<? extends Decoder>> getDecoders() {
+            return delegate.getDecoders();
+        }
+
+        @Override
+        public Map<String, Object> getUserProperties() {
+            return delegate.getUserProperties();
+        }
+    }
+
+    private class PolicyConfigurator extends ServerEndpointConfig.Configurator {
+
+        private final ServerEndpointConfig.Configurator delegate;
+
+        PolicyConfigurator(ServerEndpointConfig.Configurator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested) {
+            return negotiate(delegate.getNegotiatedExtensions(installed, requested));
+        }
+
+        @Override
+        public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+            return delegate.getNegotiatedSubprotocol(supported, requested);
+        }
+
+        @Override
+        public boolean checkOrigin(String originHeaderValue) {
+            return delegate.checkOrigin(originHeaderValue);
+        }
+
+        @Override
+        public void modifyHandshake(ServerEndpointConfig config, HandshakeRequest request, HandshakeResponse response) {
+            delegate.modifyHandshake(config, request, response);
+        }
+
+        @Override
+        public <T> T getEndpointInstance(Class<T> endpointClass) throws InstantiationException {
+            return delegate.getEndpointInstance(endpointClass);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.chatty.wire;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Merges outbound STOMP text frames queued for one session within a short window into a single
+ * WebSocket message.
+ * <p>
+ * STOMP allows several frames in one WebSocket message (each ends with a NUL octet), and both the
+ * web client and Spring's client split them again. A burst of small frames to one session then costs
+ * one WebSocket message, one write and, with permessage-deflate, one compression call with a shared
+ * dictionary instead of many. The first frame of a batch waits at most the window; a batch is sent
+ * early once it reaches max-bytes, and a binary frame flushes the batch before it to keep order.
+ * <p>
+ * The coalescing session sits under Spring's send-buffer/time-limit decorator, so slow consumer
+ * limits still apply: senders block on the session while a batch is being written.
+ */
+@Component
+public class FrameCoalescer implements WebSocketHandlerDecoratorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameCoalescer.class);
+
+    // 0 disables coalescing
+    @Value("${chatty.websocket.coalesce.window-ms:0}")
+    private long windowMs;
+
+    @Value("${chatty.websocket.coalesce.max-bytes:65536}")
+    private int maxBytes;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-coalesce-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Flushes write to the socket and may block, so they run off the timer thread
+    private final ExecutorService flushers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ws-coalesce-", 0).factory());
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        if (windowMs <= 0) {
+            return handler;
+        }
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(new CoalescingSession(session));
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        flushers.shutdown();
+    }
+
+    private class CoalescingSession extends WebSocketSessionDecorator {
+
+        // Not synchronized: flushes block in socket writes, which would pin the virtual flusher thread
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final StringBuilder pending = new StringBuilder();
+
+        CoalescingSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            lock.lock();
+            try {
+                if (!(message instanceof TextMessage text)) {
+                    flush();
+                    super.sendMessage(message);
+                    return;
+                }
+                if (pending.isEmpty()) {
+                    timer.schedule(() -> flushers.execute(this::flushLater), windowMs, TimeUnit.MILLISECONDS);
+                }
+                pending.append(text.getPayload());
+                if (pending.length() >= maxBytes) {
+                    flush();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close(CloseStatus status) throws IOException {
+            // A session closed for being unreliable is not worth another write (and may be blocked in one)
+            if (!CloseStatus.SESSION_NOT_RELIABLE.equals(status)) {
+                lock.lock();
+                try {
+                    if (isOpen()) {
+                        flush();
+                    }
+                } catch (IOException e) {
+                    logger.debug("Could not flush session {} before close", getId(), e);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            super.close(status);
+        }
+
+        private void flush() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            TextMessage batch = new TextMessage(pending.toString());
+            pending.setLength(0);
+            super.sendMessage(batch);
+        }
+
+        private void flushLater() {
+            lock.lock();
+            try {
+                if (!isOpen()) {
+                    pending.setLength(0);
+                    return;
+                }
+                flush();
+            } catch (IOException e) {
+                logger.debug("Flushing session {} failed, closing it", getId(), e);
+                try {
+                    getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ignored) {
+                    // Already broken
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.chatty.wire;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Negotiates the message wire format per session and converts outbound message batches.
+ * <p>
+ * A client asks for the compact format by sending {@code chatty-encoding: compact-v1} on CONNECT.
+ * From then on, batches on /queue/messages/ reach it as binary frames (content-type
+ * application/octet-stream, same header echoed) in the {@link CompactMessageCodec} layout; everything
+ * else, and every session that did not ask, stays JSON. Only native WebSocket sessions qualify:
+ * SockJS carries text frames only.
+ * <p>
+ * A client that cannot use permessage-deflate may also send {@code chatty-compression: deflate}:
+ * batches (JSON or compact) of at least chatty.websocket.compression.min-size-bytes are then zlib
+ * compressed on their own and flagged with the same header. Smaller ones are not worth the CPU.
+ * <p>
+ * Registered on the client inbound channel (CONNECT) and outbound channel (MESSAGE). A batch sent to
+ * several sessions shares one payload buffer, so each buffer is converted once however many compact
+ * sessions receive it.
+ */
+@Component
+public class WireEncodingInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireEncodingInterceptor.class);
+
+    public static final String ENCODING_HEADER = "chatty-encoding";
+
+    public static final String COMPACT = "compact-v1";
+
+    public static final String COMPRESSION_HEADER = "chatty-compression";
+
+    public static final String DEFLATE = "deflate";
+
+    // Session attribute set by the handshake of the native (non-SockJS) /ws endpoint
+    public static final String NATIVE_WEBSOCKET_ATTRIBUTE = "chatty.nativeWebSocket";
+
+    private static final String MESSAGE_QUEUE_PREFIX = "/queue/messages/";
+
+    private static final TypeReference<List<com.chatty.entity.Message>> MESSAGE_LIST = new TypeReference<>() {};
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${chatty.wire.compact.enabled:true}")
+    private boolean compactEnabled;
+
+    @Value("${chatty.websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${chatty.websocket.compression.min-size-bytes:1024}")
+    private int compressionMinSize;
+
+    private final Set<String> compactSessions = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> deflateSessions = ConcurrentHashMap.newKeySet();
+
+    // JSON buffer -> compact buffer; weak keys compare by identity and go away with the payload
+    private final Cache<byte[], byte[]> converted = Caffeine.newBuilder().weakKeys().maximumSize(10_000).build();
+
+    // Same for payload -> deflated payload
+    private final Cache<byte[], byte[]> deflated = Caffeine.newBuilder().weakKeys().maximumSize(10_000).build();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.CONNECT) {
+            negotiate(message);
+            return message;
+        }
+        if (type != SimpMessageType.MESSAGE || (compactSessions.isEmpty() && deflateSessions.isEmpty())) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (sessionId == null || destination == null || !destination.startsWith(MESSAGE_QUEUE_PREFIX)
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        MimeType contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE, MimeType.class);
+        boolean isJson = contentType == null || MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType);
+
+        byte[] payload = json;
+        byte[] compact = isJson && compactSessions.contains(sessionId) ? converted.get(json, this::toCompact) : null;
+        if (compact != null) {
+            payload = compact;
+        }
+        boolean deflate = deflateSessions.contains(sessionId) && payload.length >= compressionMinSize;
+        if (deflate) {
+            payload = deflated.get(payload, WireEncodingInterceptor::deflate);
+        }
+        if (compact == null && !deflate) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        if (compact != null) {
+            accessor.setNativeHeader(ENCODING_HEADER, COMPACT);
+        }
+        if (deflate) {
+            accessor.setNativeHeader(COMPRESSION_HEADER, DEFLATE);
+        }
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        compactSessions.remove(event.getSessionId());
+        deflateSessions.remove(event.getSessionId());
+    }
+
+    private void negotiate(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        boolean wantsCompact = compactEnabled && COMPACT.equals(accessor.getFirstNativeHeader(ENCODING_HEADER));
+        boolean wantsDeflate = compressionEnabled && DEFLATE.equals(accessor.getFirstNativeHeader(COMPRESSION_HEADER));
+        if (!wantsCompact && !wantsDeflate) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(NATIVE_WEBSOCKET_ATTRIBUTE))) {
+            logger.debug("Session {} asked for a binary encoding over SockJS, staying on JSON", accessor.getSessionId());
+            return;
+        }
+        if (wantsCompact) {
+            compactSessions.add(accessor.getSessionId());
+        }
+        if (wantsDeflate) {
+            deflateSessions.add(accessor.getSessionId());
+        }
+    }
+
+    private byte[] toCompact(byte[] json) {
+        try {
+            return CompactMessageCodec.encode(objectMapper.readValue(json, MESSAGE_LIST));
+        } catch (Exception e) {
+            logger.warn("Could not convert message batch to {}, sending JSON", COMPACT, e);
+            return null;
+        }
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + 64);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
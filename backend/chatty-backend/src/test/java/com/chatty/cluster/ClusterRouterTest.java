@@ -0,0 +1,169 @@
+package com.chatty.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.chatty.event.GroupMembershipChangedEvent;
+import com.chatty.metrics.MessageMetrics;
+import com.chatty.presence.PresenceRegistry;
+import com.chatty.repository.MessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for ClusterRouter delivery counting, relaying of message batches too large for the relay and of group changes.
+ */
+public class ClusterRouterTest {
+
+    private final UUID receiver = UUID.randomUUID();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ClusterRelay relay;
+    private SimpMessagingTemplate messagingTemplate;
+    private MessageRepository messageRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private PresenceRegistry presenceRegistry;
+    private MessageMetrics messageMetrics;
+    private ClusterRouter router;
+    private Consumer<RelayFrame> frames;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        relay = Mockito.mock(ClusterRelay.class);
+        when(relay.getNodeId()).thenReturn("local");
+        messagingTemplate = Mockito.mock(SimpMessagingTemplate.class);
+        messageRepository = Mockito.mock(MessageRepository.class);
+
+        router = new ClusterRouter();
+        ReflectionTestUtils.setField(router, "relay", relay);
+        ReflectionTestUtils.setField(router, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(router, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(router, "messageRepository", messageRepository);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(router, "eventPublisher", eventPublisher);
+        presenceRegistry = Mockito.mock(PresenceRegistry.class);
+        ReflectionTestUtils.setField(router, "presenceRegistry", presenceRegistry);
+        messageMetrics = Mockito.mock(MessageMetrics.class);
+        ReflectionTestUtils.setField(router, "messageMetrics", messageMetrics);
+        router.start();
+
+        ArgumentCaptor<Consumer<RelayFrame>> receiverCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(relay).start(receiverCaptor.capture(), any());
+        frames = receiverCaptor.getValue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        router.stop();
+    }
+
+    @Test
+    public void oversizeBatchIsRelayedAsReference() {
+        frames.accept(new RelayFrame(RelayFrame.Type.ONLINE, "remote", null, receiver, null, null));
+        when(relay.publish(argThat(frame -> frame != null && frame.type() == RelayFrame.Type.DELIVER))).thenReturn(false);
+        when(relay.publish(argThat(frame -> frame != null && frame.type() == RelayFrame.Type.DELIVER_REF))).thenReturn(true);
+        List<com.chatty.entity.Message> batch = List.of(message(), message());
+
+        router.deliverToUser(receiver, "/queue/messages/", batch);
+
+        ArgumentCaptor<RelayFrame> sent = ArgumentCaptor.forClass(RelayFrame.class);
+        verify(relay, Mockito.atLeast(2)).publish(sent.capture());
+        RelayFrame reference = sent.getAllValues().stream()
+                .filter(frame -> frame.type() == RelayFrame.Type.DELIVER_REF).findFirst().orElseThrow();
+        assertEquals("remote", reference.target());
+        assertEquals(batch.get(0).getId() + "," + batch.get(1).getId(), reference.payload());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void referencedMessagesAreLoadedAndDeliveredInOrder() throws Exception {
+        com.chatty.entity.Message first = message();
+        com.chatty.entity.Message second = message();
+        when(messageRepository.findAllById(any())).thenReturn(List.of(first))
+                .thenReturn(List.of(second, first));
+        String destination = "/queue/messages/" + receiver;
+
+        frames.accept(new RelayFrame(RelayFrame.Type.DELIVER_REF, "remote", "local", receiver, destination,
+                first.getId() + "," + second.getId()));
+
+        ArgumentCaptor<Message<?>> delivered = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, timeout(2000)).send(eq(destination), delivered.capture());
+        assertEquals(objectMapper.writeValueAsString(List.of(first, second)),
+                new String((byte[]) delivered.getValue().getPayload()));
+    }
+
+    @Test
+    public void localGroupChangeIsRelayedToOtherNodes() {
+        UUID groupId = UUID.randomUUID();
+
+        router.onGroupMembershipChanged(new GroupMembershipChangedEvent(groupId, false));
+        router.onGroupMembershipChanged(new GroupMembershipChangedEvent(UUID.randomUUID(), true));
+
+        ArgumentCaptor<RelayFrame> sent = ArgumentCaptor.forClass(RelayFrame.class);
+        verify(relay).publish(sent.capture());
+        assertEquals(RelayFrame.Type.GROUP_CHANGED, sent.getValue().type());
+        assertEquals(groupId.toString(), sent.getValue().payload());
+    }
+
+    @Test
+    public void relayedGroupChangeIsPublishedAsRemoteEvent() {
+        UUID groupId = UUID.randomUUID();
+
+        frames.accept(new RelayFrame(RelayFrame.Type.GROUP_CHANGED, "remote", null, null, null, groupId.toString()));
+
+        verify(eventPublisher).publishEvent(new GroupMembershipChangedEvent(groupId, true));
+    }
+
+    @Test
+    public void singleNodeCountsOfflineReceiverSeparately() {
+        ReflectionTestUtils.setField(router, "relay", null);
+        UUID online = UUID.randomUUID();
+        when(presenceRegistry.isOnlineLocally(online)).thenReturn(true);
+
+        router.deliverToUser(receiver, "/queue/messages/", List.of(message()));
+        router.deliverToUser(online, "/queue/messages/", List.of(message()));
+
+        verify(messageMetrics).offline();
+        verify(messageMetrics).deliveredLocally();
+    }
+
+    @Test
+    public void receiverWithNoSessionOnAnyNodeIsCountedOffline() {
+        router.deliverToUser(receiver, "/queue/messages/", List.of(message()));
+
+        verify(messageMetrics).offline();
+        verify(messageMetrics, never()).deliveredLocally();
+        verify(relay, never()).publish(any());
+    }
+
+    com.chatty.entity.Message message() {
+        return com.chatty.entity.Message.builder()
+                .id(UUID.randomUUID())
+                .sender(UUID.randomUUID())
+                .receiver(receiver)
+                .createdAt(System.currentTimeMillis())
+                .text("x".repeat(100))
+                .build();
+    }
+}
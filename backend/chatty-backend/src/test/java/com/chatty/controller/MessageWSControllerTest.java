@@ -0,0 +1,70 @@
+package com.chatty.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.chatty.cluster.ClusterRouter;
+import com.chatty.dto.MessageWSDTO;
+import com.chatty.dto.SendRejectionDTO;
+import com.chatty.entity.Message;
+import com.chatty.metrics.MessageMetrics;
+import com.chatty.service.ContactGraph;
+import com.chatty.service.MessageService;
+import com.chatty.service.MessageWriteBehindQueue;
+
+/**
+ * Unit tests for MessageWSController rejections of direct messages.
+ */
+public class MessageWSControllerTest {
+
+    private final UUID sender = UUID.randomUUID();
+    private final UUID receiver = UUID.randomUUID();
+
+    private MessageService messageService;
+    private ClusterRouter clusterRouter;
+    private ContactGraph contactGraph;
+    private MessageWSController controller;
+
+    @BeforeEach
+    public void setUp() {
+        messageService = Mockito.mock(MessageService.class);
+        clusterRouter = Mockito.mock(ClusterRouter.class);
+        contactGraph = Mockito.mock(ContactGraph.class);
+
+        controller = new MessageWSController();
+        controller.messageService = messageService;
+        controller.clusterRouter = clusterRouter;
+        controller.contactGraph = contactGraph;
+        controller.messageMetrics = Mockito.mock(MessageMetrics.class);
+        controller.writeBehindQueue = Mockito.mock(MessageWriteBehindQueue.class);
+        controller.requireContact = true;
+    }
+
+    @Test
+    public void messageToNonContactIsRejectedToTheSender() {
+        when(contactGraph.verifyContacts(sender, receiver)).thenReturn(false);
+
+        controller.handleMessage(sender, receiver, new MessageWSDTO(sender, receiver, "hi"));
+
+        verify(clusterRouter).deliverToUser(sender, ClusterRouter.ERROR_QUEUE_PREFIX,
+                new SendRejectionDTO(receiver, "hi", "not_contact"));
+        verify(messageService, never()).saveMessage(any(Message.class));
+    }
+
+    @Test
+    public void bodyNotMatchingTheDestinationIsRejectedToTheSender() {
+        controller.handleMessage(sender, receiver, new MessageWSDTO(UUID.randomUUID(), receiver, "hi"));
+
+        verify(clusterRouter).deliverToUser(sender, ClusterRouter.ERROR_QUEUE_PREFIX,
+                new SendRejectionDTO(receiver, "hi", "invalid_destination"));
+        verify(messageService, never()).saveMessage(any(Message.class));
+    }
+}
@@ -0,0 +1,78 @@
+package com.chatty.presence;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.chatty.cluster.ClusterRouter;
+import com.chatty.event.PresenceChangedEvent;
+
+/**
+ * Unit tests for PresenceRegistry session tracking by subscription.
+ */
+public class PresenceRegistryTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final String destination = "/queue/messages/" + userId;
+
+    private ApplicationEventPublisher eventPublisher;
+    private PresenceRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        registry = new PresenceRegistry();
+        ReflectionTestUtils.setField(registry, "messagingTemplate", Mockito.mock(SimpMessagingTemplate.class));
+        ReflectionTestUtils.setField(registry, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(registry, "clusterRouter", Mockito.mock(ClusterRouter.class));
+    }
+
+    @Test
+    public void unsubscribingFromTheUserQueueDetachesTheSession() {
+        registry.onSessionConnected("s1");
+        registry.onSubscribe("s1", "sub-0", destination);
+        assertTrue(registry.isOnlineLocally(userId));
+
+        registry.onUnsubscribe("s1", "sub-0");
+
+        assertFalse(registry.isOnlineLocally(userId));
+        verify(eventPublisher).publishEvent(new PresenceChangedEvent(userId, false));
+
+        // The session is still connected, but closing it must not detach the user again
+        registry.onSessionClosed("s1");
+        verify(eventPublisher, Mockito.times(1)).publishEvent(new PresenceChangedEvent(userId, false));
+    }
+
+    @Test
+    public void userStaysOnlineWhileAnotherSubscriptionRemains() {
+        registry.onSubscribe("s1", "sub-0", destination);
+        registry.onSubscribe("s1", "sub-1", destination);
+        registry.onSubscribe("s2", "sub-0", destination);
+
+        registry.onUnsubscribe("s1", "sub-0");
+        registry.onUnsubscribe("s2", "sub-0");
+        assertTrue(registry.isOnlineLocally(userId));
+
+        registry.onUnsubscribe("s1", "sub-1");
+        assertFalse(registry.isOnlineLocally(userId));
+    }
+
+    @Test
+    public void unsubscribingFromOtherDestinationsKeepsTheUser() {
+        registry.onSubscribe("s1", "sub-0", destination);
+
+        registry.onUnsubscribe("s1", "sub-1");
+        registry.onUnsubscribe("s2", "sub-0");
+
+        assertTrue(registry.isOnlineLocally(userId));
+    }
+}
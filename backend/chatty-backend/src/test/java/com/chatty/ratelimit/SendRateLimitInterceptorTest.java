@@ -0,0 +1,89 @@
+package com.chatty.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.chatty.metrics.MessageMetrics;
+
+/**
+ * Unit tests for SendRateLimitInterceptor bucket keys and global rejections.
+ */
+public class SendRateLimitInterceptorTest {
+
+    private final UUID receiver = UUID.randomUUID();
+
+    private SendRateLimitInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() {
+        interceptor = new SendRateLimitInterceptor();
+        ReflectionTestUtils.setField(interceptor, "clientOutboundChannel", Mockito.mock(MessageChannel.class));
+        ReflectionTestUtils.setField(interceptor, "messageMetrics", Mockito.mock(MessageMetrics.class));
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "userRate", 1.0);
+        ReflectionTestUtils.setField(interceptor, "userBurst", 2);
+        ReflectionTestUtils.setField(interceptor, "globalRate", 1000.0);
+        ReflectionTestUtils.setField(interceptor, "globalBurst", 1000);
+        ReflectionTestUtils.setField(interceptor, "maxDelayMs", 0L);
+        interceptor.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        interceptor.stop();
+    }
+
+    @Test
+    public void rotatingTheSenderDoesNotResetTheSessionLimit() {
+        assertNotNull(interceptor.preSend(send("s1", UUID.randomUUID()), null));
+        assertNotNull(interceptor.preSend(send("s1", UUID.randomUUID()), null));
+        assertNull(interceptor.preSend(send("s1", UUID.randomUUID()), null));
+
+        // Other sessions have their own bucket
+        assertNotNull(interceptor.preSend(send("s2", UUID.randomUUID()), null));
+    }
+
+    @Test
+    public void globalRejectionDoesNotUseTheUserToken() {
+        ReflectionTestUtils.setField(interceptor, "globalBucket", new TokenBucket(1, 1));
+        assertNotNull(interceptor.preSend(send("s1", UUID.randomUUID()), null));
+        assertNull(interceptor.preSend(send("s2", UUID.randomUUID()), null));
+
+        // s2's first frame was refunded, so after the global limit lifts it still has its full burst
+        ReflectionTestUtils.setField(interceptor, "globalBucket", new TokenBucket(1000, 1000));
+        ReflectionTestUtils.setField(interceptor, "rejectedSessions", ConcurrentHashMap.newKeySet());
+        assertNotNull(interceptor.preSend(send("s2", UUID.randomUUID()), null));
+        assertNotNull(interceptor.preSend(send("s2", UUID.randomUUID()), null));
+    }
+
+    @Test
+    public void otherFramesAreNotLimited() {
+        for (int i = 0; i < 5; i++) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+            accessor.setSessionId("s1");
+            accessor.setDestination("/app/messages/ack/" + receiver);
+            assertNotNull(interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null));
+        }
+    }
+
+    Message<byte[]> send(String sessionId, UUID sender) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/app/messages/send/" + sender + "/" + receiver);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
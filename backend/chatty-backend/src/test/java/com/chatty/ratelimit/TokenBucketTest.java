@@ -0,0 +1,59 @@
+package com.chatty.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for TokenBucket burst, refill and delay reservations.
+ */
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void allowsBurstThenRejects() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve(now, 0));
+        }
+        assertEquals(-1, bucket.reserve(now, 0));
+        assertFalse(bucket.isFull(now));
+    }
+
+    @Test
+    public void refillsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = System.nanoTime();
+        assertEquals(0, bucket.reserve(now, 0));
+        assertEquals(-1, bucket.reserve(now + SECOND / 20, 0));
+        assertEquals(0, bucket.reserve(now + SECOND / 10, 0));
+        assertTrue(bucket.isFull(now + SECOND));
+    }
+
+    @Test
+    public void reservesWithDelayWithinLimit() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = System.nanoTime();
+        assertEquals(0, bucket.reserve(now, 0));
+        assertEquals(SECOND / 10, bucket.reserve(now, SECOND));
+        // The delayed reservation took the next slot as well
+        assertEquals(2 * SECOND / 10, bucket.reserve(now, SECOND));
+        assertEquals(-1, bucket.reserve(now, SECOND / 10));
+    }
+
+    @Test
+    public void refundReturnsTheToken() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = System.nanoTime();
+        assertEquals(0, bucket.reserve(now, 0));
+        bucket.refund();
+        assertEquals(0, bucket.reserve(now, 0));
+        assertEquals(-1, bucket.reserve(now, 0));
+    }
+}
@@ -0,0 +1,116 @@
+package com.chatty.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chatty.dto.ContactEdge;
+import com.chatty.event.ContactEdgeEvent;
+import com.chatty.repository.ContactRepository;
+
+/**
+ * Unit tests for ContactGraph edge events, relationship checks, database fallback and reconcile.
+ */
+public class ContactGraphTest {
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID carol = UUID.randomUUID();
+
+    private final ContactGraph graph = new ContactGraph();
+
+    private ContactRepository contactRepository;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        contactRepository = Mockito.mock(ContactRepository.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        ReflectionTestUtils.setField(graph, "contactRepository", contactRepository);
+        ReflectionTestUtils.setField(graph, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(graph, "transactionTemplate", transactionTemplate);
+    }
+
+    @Test
+    public void contactsInEitherDirection() {
+        graph.onContactEdge(new ContactEdgeEvent(alice, bob, true, false));
+        graph.onContactEdge(new ContactEdgeEvent(carol, alice, true, true));
+
+        assertTrue(graph.hasEdge(alice, bob));
+        assertFalse(graph.hasEdge(bob, alice));
+        assertTrue(graph.areContacts(bob, alice));
+        assertEquals(Set.of(bob, carol), graph.contactsOf(alice));
+        assertEquals(Set.of(alice), graph.contactsOf(bob));
+        assertFalse(graph.areContacts(bob, carol));
+    }
+
+    @Test
+    public void removedEdgeIsForgotten() {
+        graph.onContactEdge(new ContactEdgeEvent(alice, bob, true, false));
+        graph.onContactEdge(new ContactEdgeEvent(bob, alice, true, false));
+        graph.onContactEdge(new ContactEdgeEvent(alice, bob, false, false));
+
+        assertFalse(graph.hasEdge(alice, bob));
+        assertTrue(graph.areContacts(alice, bob));
+
+        graph.onContactEdge(new ContactEdgeEvent(bob, alice, false, false));
+        assertFalse(graph.areContacts(alice, bob));
+        assertTrue(graph.contactsOf(alice).isEmpty());
+    }
+
+    @Test
+    public void verifyStaysInMemoryForKnownContacts() {
+        graph.onContactEdge(new ContactEdgeEvent(alice, bob, true, false));
+
+        assertTrue(graph.verifyContacts(bob, alice));
+        verify(contactRepository, never()).existsByInitiatorAndTarget(any(), any());
+    }
+
+    @Test
+    public void verifyFallsBackToDatabaseAndRepairs() {
+        when(contactRepository.existsByInitiatorAndTarget(bob, alice)).thenReturn(true);
+
+        assertTrue(graph.verifyContacts(alice, bob));
+        assertTrue(graph.hasEdge(bob, alice));
+        assertFalse(graph.hasEdge(alice, bob));
+        verify(eventPublisher).publishEvent(new ContactEdgeEvent(bob, alice, true, true));
+
+        assertFalse(graph.verifyContacts(alice, carol));
+        assertFalse(graph.areContacts(alice, carol));
+    }
+
+    @Test
+    public void reconcileAddsMissingAndRemovesStaleEdges() {
+        graph.onContactEdge(new ContactEdgeEvent(alice, bob, true, false));
+        graph.onContactEdge(new ContactEdgeEvent(alice, carol, true, false));
+        when(contactRepository.streamEdges()).thenReturn(Stream.of(new ContactEdge(alice, bob), new ContactEdge(bob, carol)));
+
+        assertEquals(2, graph.reconcile());
+
+        assertTrue(graph.hasEdge(alice, bob));
+        assertTrue(graph.hasEdge(bob, carol));
+        assertFalse(graph.hasEdge(alice, carol));
+        verify(eventPublisher).publishEvent(new ContactEdgeEvent(bob, carol, true, true));
+        verify(eventPublisher).publishEvent(new ContactEdgeEvent(alice, carol, false, true));
+    }
+}
@@ -0,0 +1,77 @@
+package com.chatty.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.chatty.dto.MessageCursor;
+import com.chatty.entity.DeliveryCursor;
+import com.chatty.repository.DeliveryCursorRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Unit tests for DeliveryCursorService caching and flushing.
+ */
+public class DeliveryCursorServiceTest {
+
+    private DeliveryCursorRepository repository;
+    private JdbcTemplate jdbcTemplate;
+    private DeliveryCursorService service;
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(DeliveryCursorRepository.class);
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        service = new DeliveryCursorService();
+        ReflectionTestUtils.setField(service, "deliveryCursorRepository", repository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(service, "maxSize", 100L);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofMinutes(1));
+        service.start();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushUpsertsAllDirtyCursorsInOneBatch() {
+        service.advance(UUID.randomUUID(), new MessageCursor(1000L, UUID.randomUUID()));
+        service.advance(UUID.randomUUID(), new MessageCursor(2000L, UUID.randomUUID()));
+
+        service.stop();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        verify(repository, Mockito.never()).saveAll(anyList());
+    }
+
+    @Test
+    public void evictedCursorReloadsWithoutLosingUnflushedAcks() {
+        UUID userId = UUID.randomUUID();
+        MessageCursor stored = new MessageCursor(1000L, UUID.randomUUID());
+        when(repository.findById(userId)).thenReturn(Optional.of(DeliveryCursor.builder()
+                .userId(userId).lastCreatedAt(stored.createdAt()).lastMessageId(stored.id()).build()));
+        assertEquals(stored, service.getCursor(userId));
+
+        MessageCursor acked = new MessageCursor(2000L, UUID.randomUUID());
+        service.advance(userId, acked);
+        ((Cache<?, ?>) ReflectionTestUtils.getField(service, "cursors")).invalidateAll();
+
+        assertEquals(acked, service.getCursor(userId));
+    }
+}
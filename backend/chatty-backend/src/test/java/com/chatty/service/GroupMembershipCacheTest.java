@@ -0,0 +1,154 @@
+package com.chatty.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.chatty.entity.GroupMember;
+import com.chatty.event.GroupMembershipChangedEvent;
+import com.chatty.repository.ChatGroupRepository;
+import com.chatty.repository.GroupMemberRepository;
+
+/**
+ * Unit tests for GroupMembershipCache loading and invalidation, local and relayed from other nodes.
+ */
+public class GroupMembershipCacheTest {
+
+    private final UUID groupId = UUID.randomUUID();
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    private GroupMemberRepository groupMemberRepository;
+    private GroupMembershipCache cache;
+    private GroupService groupService;
+
+    @BeforeEach
+    public void setUp() {
+        groupMemberRepository = Mockito.mock(GroupMemberRepository.class);
+        cache = new GroupMembershipCache();
+        ReflectionTestUtils.setField(cache, "groupMemberRepository", groupMemberRepository);
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(5));
+        cache.init();
+
+        groupService = new GroupService();
+        ReflectionTestUtils.setField(groupService, "groupMemberRepository", groupMemberRepository);
+        ReflectionTestUtils.setField(groupService, "chatGroupRepository", Mockito.mock(ChatGroupRepository.class));
+        ReflectionTestUtils.setField(groupService, "membershipCache", cache);
+        // Deliver the service's events to the cache, as the application context would
+        ApplicationEventPublisher eventPublisher = event -> cache.onMembershipChanged((GroupMembershipChangedEvent) event);
+        ReflectionTestUtils.setField(groupService, "eventPublisher", eventPublisher);
+    }
+
+    @Test
+    public void shouldLoadMembersOnceUntilInvalidated() {
+        when(groupMemberRepository.findUserIdsByGroupId(groupId)).thenReturn(List.of(alice));
+
+        assertEquals(List.of(alice), cache.getMembers(groupId));
+        assertEquals(List.of(alice), cache.getMembers(groupId));
+        assertTrue(cache.isMember(groupId, alice));
+        verify(groupMemberRepository, times(1)).findUserIdsByGroupId(groupId);
+    }
+
+    @Test
+    public void shouldReloadAfterInvalidate() {
+        when(groupMemberRepository.findUserIdsByGroupId(groupId))
+                .thenReturn(List.of(alice))
+                .thenReturn(List.of(alice, bob));
+
+        assertEquals(List.of(alice), cache.getMembers(groupId));
+        cache.invalidate(groupId);
+        assertEquals(List.of(alice, bob), cache.getMembers(groupId));
+        verify(groupMemberRepository, times(2)).findUserIdsByGroupId(groupId);
+    }
+
+    @Test
+    public void shouldOnlyInvalidateTheChangedGroup() {
+        UUID otherGroupId = UUID.randomUUID();
+        when(groupMemberRepository.findUserIdsByGroupId(groupId)).thenReturn(List.of(alice));
+        when(groupMemberRepository.findUserIdsByGroupId(otherGroupId)).thenReturn(List.of(bob));
+
+        cache.getMembers(groupId);
+        cache.getMembers(otherGroupId);
+        cache.invalidate(groupId);
+        cache.getMembers(otherGroupId);
+
+        verify(groupMemberRepository, times(1)).findUserIdsByGroupId(otherGroupId);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void invalidateDuringLoadShouldDiscardItsResult() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(groupMemberRepository.findUserIdsByGroupId(groupId))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await();
+                    return List.of(alice);
+                })
+                .thenReturn(List.of(alice, bob));
+
+        CompletableFuture<List<UUID>> stale = CompletableFuture.supplyAsync(() -> cache.getMembers(groupId));
+        loading.await();
+        cache.invalidate(groupId);
+        release.countDown();
+
+        assertEquals(List.of(alice), stale.get());
+        assertEquals(List.of(alice, bob), cache.getMembers(groupId));
+        assertEquals(List.of(alice, bob), cache.getMembers(groupId));
+        verify(groupMemberRepository, times(2)).findUserIdsByGroupId(groupId);
+    }
+
+    @Test
+    public void addMemberShouldInvalidateCachedMembers() {
+        when(groupMemberRepository.findUserIdsByGroupId(groupId))
+                .thenReturn(List.of(alice))
+                .thenReturn(List.of(alice, bob));
+        when(groupMemberRepository.existsByGroupIdAndUserId(groupId, bob)).thenReturn(false);
+        when(groupMemberRepository.save(any(GroupMember.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertFalse(cache.isMember(groupId, bob));
+        assertTrue(groupService.addMember(groupId, bob));
+        assertTrue(cache.isMember(groupId, bob));
+    }
+
+    @Test
+    public void removeMemberShouldInvalidateCachedMembers() {
+        when(groupMemberRepository.findUserIdsByGroupId(groupId))
+                .thenReturn(List.of(alice, bob))
+                .thenReturn(List.of(alice));
+        when(groupMemberRepository.deleteByGroupIdAndUserId(groupId, bob)).thenReturn(1);
+
+        assertTrue(cache.isMember(groupId, bob));
+        assertTrue(groupService.removeMember(groupId, bob));
+        assertFalse(cache.isMember(groupId, bob));
+    }
+
+    @Test
+    public void changeRelayedFromAnotherNodeShouldInvalidateCachedMembers() {
+        when(groupMemberRepository.findUserIdsByGroupId(groupId))
+                .thenReturn(List.of(alice, bob))
+                .thenReturn(List.of(alice));
+
+        assertTrue(cache.isMember(groupId, bob));
+        cache.onMembershipChanged(new GroupMembershipChangedEvent(groupId, true));
+        assertFalse(cache.isMember(groupId, bob));
+    }
+}
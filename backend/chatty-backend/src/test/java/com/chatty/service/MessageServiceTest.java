@@ -0,0 +1,52 @@
+package com.chatty.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chatty.entity.Message;
+import com.chatty.metrics.MessageMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Unit tests for MessageService batch inserts.
+ */
+public class MessageServiceTest {
+
+    @Test
+    public void listenerFailureAfterCommitDoesNotFailTheBatch() {
+        MessageMetrics metrics = new MessageMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        metrics.init();
+        ApplicationEventPublisher publisher = Mockito.mock(ApplicationEventPublisher.class);
+        // e.g. a listener's executor already stopped during shutdown
+        doThrow(new RejectedExecutionException("stopped")).when(publisher).publishEvent(any(Object.class));
+
+        MessageService service = new MessageService();
+        ReflectionTestUtils.setField(service, "transactionTemplate", Mockito.mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(service, "entityManager", Mockito.mock(EntityManager.class));
+        ReflectionTestUtils.setField(service, "eventPublisher", publisher);
+        ReflectionTestUtils.setField(service, "messageMetrics", metrics);
+
+        List<Message> messages = List.of(
+                Message.builder().id(UUID.randomUUID()).build(),
+                Message.builder().id(UUID.randomUUID()).build());
+
+        assertDoesNotThrow(() -> service.saveAllNew(messages));
+        verify(publisher, times(2)).publishEvent(any(Object.class));
+    }
+}
@@ -0,0 +1,84 @@
+package com.chatty.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for MutualContactIndex counts, suggestion ranking and lock-free reads during updates.
+ */
+public class MutualContactIndexTest {
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID carol = UUID.randomUUID();
+    private final UUID dave = UUID.randomUUID();
+    private final UUID erin = UUID.randomUUID();
+
+    private final MutualContactIndex index = new MutualContactIndex();
+
+    @Test
+    public void ranksFriendsOfFriendsByMutualContacts() {
+        index.addEdge(alice, bob);
+        index.addEdge(carol, alice);
+        index.addEdge(bob, dave);
+        index.addEdge(carol, dave);
+        index.addEdge(carol, erin);
+
+        List<MutualContactIndex.Suggestion> suggestions = index.suggest(alice, 10);
+
+        assertEquals(List.of(
+                new MutualContactIndex.Suggestion(dave, 2),
+                new MutualContactIndex.Suggestion(erin, 1)), suggestions);
+        assertEquals(2, index.mutualCount(alice, dave));
+        assertEquals(Set.of(bob, carol), Set.copyOf(index.mutualContacts(alice, dave)));
+    }
+
+    @Test
+    public void excludesExistingContactsAndHonoursLimit() {
+        index.addEdge(alice, bob);
+        index.addEdge(bob, carol);
+        index.addEdge(bob, dave);
+        index.addEdge(alice, carol);
+
+        assertEquals(List.of(new MutualContactIndex.Suggestion(dave, 1)), index.suggest(alice, 10));
+        assertEquals(1, index.suggest(dave, 1).size());
+    }
+
+    @Test
+    public void removedEdgeNoLongerCounts() {
+        index.addEdge(alice, bob);
+        index.addEdge(bob, carol);
+        index.removeEdge(bob, alice);
+
+        assertTrue(index.suggest(alice, 10).isEmpty());
+        assertEquals(0, index.mutualCount(alice, carol));
+    }
+
+    @Test
+    public void readersNeverSeeUnknownUsersWhileTheIndexGrows() throws Exception {
+        index.addEdge(alice, bob);
+        // Every new user becomes a friend of a friend of alice; interning past 1024 users grows the tables
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 5000; i++) {
+                index.addEdge(bob, UUID.randomUUID());
+            }
+        });
+        while (!writer.isDone()) {
+            for (MutualContactIndex.Suggestion suggestion : index.suggest(alice, 20)) {
+                assertNotNull(suggestion.userId());
+            }
+            index.contactsOf(bob).forEach(contact -> assertNotNull(contact));
+        }
+        writer.get();
+        assertEquals(5001, index.contactsOf(bob).size());
+        assertEquals(20, index.suggest(alice, 20).size());
+    }
+}
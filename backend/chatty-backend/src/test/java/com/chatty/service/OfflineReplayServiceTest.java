@@ -0,0 +1,152 @@
+package com.chatty.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.chatty.cluster.ClusterRouter;
+import com.chatty.dto.MessageCursor;
+import com.chatty.entity.DeliveryCursor;
+import com.chatty.entity.Message;
+import com.chatty.repository.DeliveryCursorRepository;
+import com.chatty.repository.MessageRepository;
+
+/**
+ * Unit tests for OfflineReplayService replay bounds and how acks move the cursor during a replay.
+ */
+public class OfflineReplayServiceTest {
+
+    private final UUID userId = UUID.randomUUID();
+
+    private MessageRepository messageRepository;
+    private DeliveryCursorService deliveryCursorService;
+    private MessageChannel clientOutboundChannel;
+    private OfflineReplayService service;
+
+    @BeforeEach
+    public void setUp() {
+        messageRepository = Mockito.mock(MessageRepository.class);
+        deliveryCursorService = Mockito.mock(DeliveryCursorService.class);
+        ClusterRouter clusterRouter = Mockito.mock(ClusterRouter.class);
+        when(clusterRouter.encode(any())).thenReturn(new byte[0]);
+
+        service = new OfflineReplayService();
+        ReflectionTestUtils.setField(service, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(service, "deliveryCursorService", deliveryCursorService);
+        ReflectionTestUtils.setField(service, "clusterRouter", clusterRouter);
+        clientOutboundChannel = Mockito.mock(MessageChannel.class);
+        when(clientOutboundChannel.send(any())).thenReturn(true);
+        ReflectionTestUtils.setField(service, "clientOutboundChannel", clientOutboundChannel);
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "maxMessages", 5000);
+        ReflectionTestUtils.setField(service, "replayThreads", 1);
+        service.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    public void replayStopsAtTheSubscriptionTime() {
+        MessageCursor cursor = new MessageCursor(1000L, UUID.randomUUID());
+        when(deliveryCursorService.getCursor(userId)).thenReturn(cursor);
+        when(messageRepository.findReceivedBetween(eq(userId), anyLong(), any(), anyLong(), any()))
+                .thenReturn(List.of(Message.builder().id(UUID.randomUUID()).createdAt(2000L).build()));
+
+        long before = System.currentTimeMillis();
+        service.onSubscribe("s1", "sub-0", "/queue/messages/" + userId);
+        long after = System.currentTimeMillis();
+
+        ArgumentCaptor<Long> until = ArgumentCaptor.forClass(Long.class);
+        verify(messageRepository, timeout(2000)).findReceivedBetween(eq(userId), eq(1000L), eq(cursor.id()),
+                until.capture(), any());
+        assertTrue(until.getValue() >= before && until.getValue() <= after);
+    }
+
+    @Test
+    public void liveAcksDoNotSkipMessagesBeyondTheReplayLimit() throws Exception {
+        DeliveryCursorService cursors = realCursorService(new MessageCursor(1000L, UUID.randomUUID()));
+        ReflectionTestUtils.setField(service, "maxMessages", 200);
+
+        // More than the limit was missed, and a live message is acked while each batch replays
+        List<Message> replayed = new ArrayList<>();
+        when(messageRepository.findReceivedBetween(eq(userId), anyLong(), any(), anyLong(), any())).thenAnswer(invocation -> {
+            cursors.advance(userId, new MessageCursor(System.currentTimeMillis(), UUID.randomUUID()));
+            List<Message> batch = batchAfter(invocation.getArgument(1), 100);
+            replayed.addAll(batch);
+            return batch;
+        });
+
+        service.onSubscribe("s1", "sub-0", "/queue/messages/" + userId);
+        awaitReplays();
+
+        cursors.advance(userId, new MessageCursor(System.currentTimeMillis(), UUID.randomUUID()));
+        Message last = replayed.get(199);
+        assertEquals(new MessageCursor(last.getCreatedAt(), last.getId()), cursors.getCursor(userId));
+    }
+
+    @Test
+    public void liveAcksMoveTheCursorOnceTheReplayIsComplete() throws Exception {
+        DeliveryCursorService cursors = realCursorService(new MessageCursor(1000L, UUID.randomUUID()));
+        when(messageRepository.findReceivedBetween(eq(userId), anyLong(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> batchAfter(invocation.getArgument(1), 10));
+
+        service.onSubscribe("s1", "sub-0", "/queue/messages/" + userId);
+        awaitReplays();
+
+        MessageCursor live = new MessageCursor(System.currentTimeMillis(), UUID.randomUUID());
+        cursors.advance(userId, live);
+        assertEquals(live, cursors.getCursor(userId));
+    }
+
+    private DeliveryCursorService realCursorService(MessageCursor stored) {
+        DeliveryCursorRepository repository = Mockito.mock(DeliveryCursorRepository.class);
+        when(repository.findById(userId)).thenReturn(Optional.of(DeliveryCursor.builder()
+                .userId(userId).lastCreatedAt(stored.createdAt()).lastMessageId(stored.id()).build()));
+        DeliveryCursorService cursors = new DeliveryCursorService();
+        ReflectionTestUtils.setField(cursors, "deliveryCursorRepository", repository);
+        ReflectionTestUtils.setField(cursors, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(cursors, "maxSize", 100L);
+        ReflectionTestUtils.setField(cursors, "ttl", Duration.ofMinutes(1));
+        cursors.start();
+        ReflectionTestUtils.setField(service, "deliveryCursorService", cursors);
+        return cursors;
+    }
+
+    private void awaitReplays() throws InterruptedException {
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(service, "executor");
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.SECONDS));
+    }
+
+    private static List<Message> batchAfter(long createdAt, int size) {
+        List<Message> batch = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            batch.add(Message.builder().id(UUID.randomUUID()).createdAt(createdAt + i).build());
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,61 @@
+package com.chatty.wire;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.chatty.entity.Message;
+
+/**
+ * Unit tests for CompactMessageCodec round trips and size.
+ */
+public class CompactMessageCodecTest {
+
+    @Test
+    public void roundTripsDirectAndGroupMessages() {
+        Message direct = Message.builder()
+                .id(UUID.randomUUID())
+                .sender(UUID.randomUUID())
+                .receiver(UUID.randomUUID())
+                .createdAt(1_700_000_000_000L)
+                .text("héllo 👋 " + "x".repeat(300))
+                .isDeleted(false)
+                .build();
+        Message group = Message.builder()
+                .id(UUID.randomUUID())
+                .sender(UUID.randomUUID())
+                .groupId(UUID.randomUUID())
+                .createdAt(1_700_000_000_001L)
+                .text("")
+                .isDeleted(true)
+                .build();
+
+        assertEquals(List.of(direct, group), CompactMessageCodec.decode(CompactMessageCodec.encode(List.of(direct, group))));
+    }
+
+    @Test
+    public void keepsMissingFieldsMissing() {
+        Message sparse = new Message();
+        sparse.setSender(UUID.randomUUID());
+        sparse.setIsDeleted(null);
+
+        assertEquals(List.of(sparse), CompactMessageCodec.decode(CompactMessageCodec.encode(List.of(sparse))));
+    }
+
+    @Test
+    public void encodesEmptyBatch() {
+        byte[] encoded = CompactMessageCodec.encode(List.of());
+        assertEquals(2, encoded.length);
+        assertTrue(CompactMessageCodec.decode(encoded).isEmpty());
+    }
+
+    @Test
+    public void rejectsUnknownVersion() {
+        assertThrows(IllegalArgumentException.class, () -> CompactMessageCodec.decode(new byte[] {2, 0}));
+    }
+}
@@ -0,0 +1,94 @@
+package com.chatty.wire;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.websocket.Extension;
+
+/**
+ * Unit tests for the permessage-deflate policy applied to negotiated extensions.
+ */
+public class DeflatePolicyUpgradeStrategyTest {
+
+    private final Extension deflate = extension("permessage-deflate", Map.of("client_max_window_bits", ""));
+
+    private final Extension other = extension("x-other", Map.of());
+
+    @Test
+    public void keepsOfferWithContextTakeover() {
+        List<Extension> negotiated = new DeflatePolicyUpgradeStrategy(true, true).negotiate(List.of(deflate, other));
+
+        assertEquals(2, negotiated.size());
+        assertSame(deflate, negotiated.get(0));
+        assertSame(other, negotiated.get(1));
+    }
+
+    @Test
+    public void addsNoContextTakeoverParameters() {
+        List<Extension> negotiated = new DeflatePolicyUpgradeStrategy(true, false).negotiate(List.of(deflate));
+
+        assertEquals(1, negotiated.size());
+        assertEquals("permessage-deflate", negotiated.get(0).getName());
+        Map<String, String> parameters = parameters(negotiated.get(0));
+        assertEquals(Map.of("client_max_window_bits", "", "server_no_context_takeover", "",
+                "client_no_context_takeover", ""), parameters);
+        assertTrue(negotiated.get(0).getParameters().stream()
+                .filter(parameter -> parameter.getName().endsWith("no_context_takeover"))
+                .allMatch(parameter -> parameter.getValue() == null));
+    }
+
+    @Test
+    public void doesNotRepeatParametersTheClientOffered() {
+        Extension offered = extension("permessage-deflate", Map.of("server_no_context_takeover", ""));
+
+        List<Extension> negotiated = new DeflatePolicyUpgradeStrategy(true, false).negotiate(List.of(offered));
+
+        assertEquals(2, negotiated.get(0).getParameters().size());
+    }
+
+    @Test
+    public void dropsDeflateWhenDisabled() {
+        List<Extension> negotiated = new DeflatePolicyUpgradeStrategy(false, true).negotiate(List.of(deflate, other));
+
+        assertEquals(List.of(other), negotiated);
+    }
+
+    static Map<String, String> parameters(Extension extension) {
+        return extension.getParameters().stream().collect(Collectors.toMap(Extension.Parameter::getName,
+                parameter -> parameter.getValue() != null ? parameter.getValue() : ""));
+    }
+
+    static Extension extension(String name, Map<String, String> parameters) {
+        List<Extension.Parameter> list = parameters.entrySet().stream()
+                .<Extension.Parameter>map(entry -> new Extension.Parameter() {
+                    @Override
+                    public String getName() {
+                        return entry.getKey();
+                    }
+
+                    @Override
+                    public String getValue() {
+                        return entry.getValue().isEmpty() ? null : entry.getValue();
+                    }
+                })
+                .toList();
+        return new Extension() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public List<Parameter> getParameters() {
+                return list;
+            }
+        };
+    }
+}
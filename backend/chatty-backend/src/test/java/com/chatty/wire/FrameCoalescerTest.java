@@ -0,0 +1,131 @@
+package com.chatty.wire;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Unit tests for FrameCoalescer batching, flush triggers and close behaviour.
+ */
+public class FrameCoalescerTest {
+
+    private FrameCoalescer coalescer;
+
+    private WebSocketSession socket;
+
+    private WebSocketSession session;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        coalescer = new FrameCoalescer();
+        ReflectionTestUtils.setField(coalescer, "windowMs", 50L);
+        ReflectionTestUtils.setField(coalescer, "maxBytes", 16);
+        socket = mock(WebSocketSession.class);
+        when(socket.isOpen()).thenReturn(true);
+        when(socket.getId()).thenReturn("s1");
+
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        coalescer.decorate(handler).afterConnectionEstablished(socket);
+        ArgumentCaptor<WebSocketSession> established = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(established.capture());
+        session = established.getValue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    public void disabledWithoutWindow() {
+        FrameCoalescer disabled = new FrameCoalescer();
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        assertSame(handler, disabled.decorate(handler));
+        disabled.shutdown();
+    }
+
+    @Test
+    public void flushesBatchWhenWindowEnds() throws Exception {
+        session.sendMessage(new TextMessage("a\0"));
+        session.sendMessage(new TextMessage("b\0"));
+        verify(socket, never()).sendMessage(any());
+
+        assertEquals(List.of("a\0b\0"), sent(1));
+    }
+
+    @Test
+    public void flushesEarlyAtMaxBytes() throws Exception {
+        session.sendMessage(new TextMessage("0123456789\0"));
+        session.sendMessage(new TextMessage("abcdef\0"));
+
+        verify(socket).sendMessage(any());
+        assertEquals(List.of("0123456789\0abcdef\0"), sent(1));
+        // The window timer of that batch finds nothing left to send
+        verify(socket, after(150).times(1)).sendMessage(any());
+    }
+
+    @Test
+    public void binaryFrameFlushesPendingTextFirst() throws Exception {
+        BinaryMessage binary = new BinaryMessage(new byte[] {1, 2});
+        session.sendMessage(new TextMessage("a\0"));
+        session.sendMessage(binary);
+
+        ArgumentCaptor<WebSocketMessage<?>> messages = captor();
+        verify(socket, times(2)).sendMessage(messages.capture());
+        assertEquals("a\0", messages.getAllValues().get(0).getPayload());
+        assertSame(binary, messages.getAllValues().get(1));
+    }
+
+    @Test
+    public void closeFlushesPending() throws Exception {
+        session.sendMessage(new TextMessage("a\0"));
+        session.close(CloseStatus.NORMAL);
+
+        ArgumentCaptor<WebSocketMessage<?>> messages = captor();
+        verify(socket).sendMessage(messages.capture());
+        assertEquals("a\0", messages.getValue().getPayload());
+        verify(socket).close(CloseStatus.NORMAL);
+    }
+
+    @Test
+    public void unreliableCloseDropsPending() throws Exception {
+        session.sendMessage(new TextMessage("a\0"));
+        session.close(CloseStatus.SESSION_NOT_RELIABLE);
+
+        verify(socket).close(CloseStatus.SESSION_NOT_RELIABLE);
+        when(socket.isOpen()).thenReturn(false);
+        verify(socket, after(150).never()).sendMessage(any());
+    }
+
+    private List<Object> sent(int count) throws Exception {
+        ArgumentCaptor<WebSocketMessage<?>> messages = captor();
+        verify(socket, timeout(1000).times(count)).sendMessage(messages.capture());
+        return messages.getAllValues().stream().<Object>map(WebSocketMessage::getPayload).toList();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<WebSocketMessage<?>> captor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(WebSocketMessage.class);
+    }
+}
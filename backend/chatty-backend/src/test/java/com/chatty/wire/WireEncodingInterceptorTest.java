@@ -0,0 +1,219 @@
+package com.chatty.wire;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for WireEncodingInterceptor negotiation, outbound message conversion and payload deflate.
+ */
+public class WireEncodingInterceptorTest {
+
+    private final UUID receiver = UUID.randomUUID();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private WireEncodingInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() {
+        interceptor = new WireEncodingInterceptor();
+        ReflectionTestUtils.setField(interceptor, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(interceptor, "compactEnabled", true);
+        ReflectionTestUtils.setField(interceptor, "compressionEnabled", true);
+        ReflectionTestUtils.setField(interceptor, "compressionMinSize", 256);
+    }
+
+    @Test
+    public void convertsBatchesForCompactSessions() throws Exception {
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        List<com.chatty.entity.Message> batch = List.of(message("hello"));
+
+        Message<?> sent = interceptor.preSend(delivery("s1", "/queue/messages/" + receiver, batch), null);
+
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, sent.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertEquals(WireEncodingInterceptor.COMPACT, nativeHeader(sent, WireEncodingInterceptor.ENCODING_HEADER));
+        assertEquals(batch, CompactMessageCodec.decode((byte[]) sent.getPayload()));
+    }
+
+    @Test
+    public void sockJsSessionsStayOnJson() throws Exception {
+        connect("s1", false, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        Message<?> delivery = delivery("s1", "/queue/messages/" + receiver, List.of(message("hello")));
+
+        assertSame(delivery, interceptor.preSend(delivery, null));
+    }
+
+    @Test
+    public void sessionsThatDidNotAskStayOnJson() throws Exception {
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        connect("s2", true, Map.of());
+        Message<?> delivery = delivery("s2", "/queue/messages/" + receiver, List.of(message("hello")));
+
+        assertSame(delivery, interceptor.preSend(delivery, null));
+    }
+
+    @Test
+    public void otherDestinationsStayOnJson() throws Exception {
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        Message<?> delivery = delivery("s1", "/topic/presence", List.of(message("hello")));
+
+        assertSame(delivery, interceptor.preSend(delivery, null));
+    }
+
+    @Test
+    public void disabledOrDisconnectedSessionsStayOnJson() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "compactEnabled", false);
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        Message<?> delivery = delivery("s1", "/queue/messages/" + receiver, List.of(message("hello")));
+        assertSame(delivery, interceptor.preSend(delivery, null));
+
+        ReflectionTestUtils.setField(interceptor, "compactEnabled", true);
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        interceptor.onDisconnect(new SessionDisconnectEvent(this, disconnectMessage("s1"), "s1", CloseStatus.NORMAL));
+        assertSame(delivery, interceptor.preSend(delivery, null));
+    }
+
+    @Test
+    public void reusesConversionOfSharedPayload() throws Exception {
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        connect("s2", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        byte[] json = objectMapper.writeValueAsBytes(List.of(message("hello")));
+
+        Object first = interceptor.preSend(delivery("s1", "/queue/messages/" + receiver, json), null).getPayload();
+        Object second = interceptor.preSend(delivery("s2", "/queue/messages/" + receiver, json), null).getPayload();
+
+        assertSame(first, second);
+        assertArrayEquals((byte[]) first, CompactMessageCodec.encode(objectMapper.readValue(json,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, com.chatty.entity.Message.class))));
+    }
+
+    @Test
+    public void deflatesPayloadsFromMinSize() throws Exception {
+        connect("s1", true, Map.of(WireEncodingInterceptor.COMPRESSION_HEADER, WireEncodingInterceptor.DEFLATE));
+        Message<?> small = delivery("s1", "/queue/messages/" + receiver, List.of(message("hi")));
+        assertSame(small, interceptor.preSend(small, null));
+
+        byte[] json = objectMapper.writeValueAsBytes(List.of(message("hello ".repeat(200))));
+        Message<?> sent = interceptor.preSend(delivery("s1", "/queue/messages/" + receiver, json), null);
+
+        assertEquals(WireEncodingInterceptor.DEFLATE, nativeHeader(sent, WireEncodingInterceptor.COMPRESSION_HEADER));
+        assertNull(nativeHeader(sent, WireEncodingInterceptor.ENCODING_HEADER));
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, sent.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        byte[] deflated = (byte[]) sent.getPayload();
+        assertTrue(deflated.length < json.length);
+        assertArrayEquals(json, inflate(deflated));
+    }
+
+    @Test
+    public void deflatesCompactPayloads() throws Exception {
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT,
+                WireEncodingInterceptor.COMPRESSION_HEADER, WireEncodingInterceptor.DEFLATE));
+        List<com.chatty.entity.Message> batch = List.of(message("hello ".repeat(200)));
+
+        Message<?> sent = interceptor.preSend(delivery("s1", "/queue/messages/" + receiver, batch), null);
+
+        assertEquals(WireEncodingInterceptor.COMPACT, nativeHeader(sent, WireEncodingInterceptor.ENCODING_HEADER));
+        assertEquals(WireEncodingInterceptor.DEFLATE, nativeHeader(sent, WireEncodingInterceptor.COMPRESSION_HEADER));
+        assertEquals(batch, CompactMessageCodec.decode(inflate((byte[]) sent.getPayload())));
+    }
+
+    @Test
+    public void deflateNeedsCompressionEnabledAndNativeWebSocket() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "compressionEnabled", false);
+        connect("s1", true, Map.of(WireEncodingInterceptor.COMPRESSION_HEADER, WireEncodingInterceptor.DEFLATE));
+        ReflectionTestUtils.setField(interceptor, "compressionEnabled", true);
+        connect("s2", false, Map.of(WireEncodingInterceptor.COMPRESSION_HEADER, WireEncodingInterceptor.DEFLATE));
+
+        for (String sessionId : List.of("s1", "s2")) {
+            Message<?> delivery = delivery(sessionId, "/queue/messages/" + receiver, List.of(message("x".repeat(500))));
+            assertSame(delivery, interceptor.preSend(delivery, null));
+        }
+    }
+
+    @Test
+    public void unreadablePayloadIsSentAsIs() {
+        connect("s1", true, Map.of(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT));
+        Message<?> delivery = delivery("s1", "/queue/messages/" + receiver, "not json".getBytes());
+
+        Message<?> sent = interceptor.preSend(delivery, null);
+        assertSame(delivery, sent);
+        assertNull(nativeHeader(sent, WireEncodingInterceptor.ENCODING_HEADER));
+    }
+
+    void connect(String sessionId, boolean nativeWebSocket, Map<String, String> headers) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeWebSocket) {
+            attributes.put(WireEncodingInterceptor.NATIVE_WEBSOCKET_ATTRIBUTE, true);
+        }
+        accessor.setSessionAttributes(attributes);
+        headers.forEach(accessor::setNativeHeader);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    Message<?> delivery(String sessionId, String destination, List<com.chatty.entity.Message> batch) throws Exception {
+        return delivery(sessionId, destination, objectMapper.writeValueAsBytes(batch));
+    }
+
+    Message<?> delivery(String sessionId, String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    com.chatty.entity.Message message(String text) {
+        return com.chatty.entity.Message.builder()
+                .id(UUID.randomUUID())
+                .sender(UUID.randomUUID())
+                .receiver(receiver)
+                .createdAt(System.currentTimeMillis())
+                .text(text)
+                .build();
+    }
+
+    static byte[] inflate(byte[] deflated) throws IOException {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(deflated))) {
+            return in.readAllBytes();
+        }
+    }
+
+    static String nativeHeader(Message<?> message, String name) {
+        return SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(name);
+    }
+
+    static Message<byte[]> disconnectMessage(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,49 @@
+package com.chatty.benchmark;
+
+import com.chatty.service.ContactGraph;
+import com.chatty.service.ContactService;
+import com.chatty.service.UserProfileCache;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Minimal Spring context for benchmarks that need the persistence layer: entities, repositories
+ * and the services under test, over an in-memory H2 database. No web server, broker or cluster.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan("com.chatty.entity")
+@EnableJpaRepositories("com.chatty.repository")
+@Import({ContactService.class, ContactGraph.class, UserProfileCache.class})
+public class BenchmarkApplication {
+
+    /**
+     * Start a context on a fresh in-memory database.
+     * The backend's application.properties (PostgreSQL) is not loaded.
+     */
+    public static ConfigurableApplicationContext start(String databaseName) {
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run("--spring.config.name=benchmark",
+                        // DATABASE_TO_LOWER: native queries name tables unquoted, in lower case
+                        "--spring.datasource.url=jdbc:h2:mem:" + databaseName
+                                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.hibernate.naming.physical-strategy="
+                                + "org.hibernate.boot.model.naming.PhysicalNamingStrategyStandardImpl",
+                        // Entities use schema "public" and the reserved table name "user"
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+                        "--spring.jpa.open-in-view=false",
+                        "--logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,101 @@
+package com.chatty.benchmark;
+
+import com.chatty.broker.IndexedSubscriptionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one send through the simple broker to a user queue while N sessions are subscribed,
+ * one /queue/messages/{userId} destination each. Compares Spring's default registry with
+ * {@link IndexedSubscriptionRegistry}. The outbound channel discards messages, so this is the
+ * broker's own work: subscription lookup plus building the per-subscriber message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BrokerDispatchBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int subscriptions;
+
+    @Param({"default", "indexed"})
+    private String registry;
+
+    private SimpleBrokerMessageHandler broker;
+
+    private Message<?>[] sends;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        AbstractSubscriptionRegistry subscriptionRegistry = "indexed".equals(registry)
+                ? new IndexedSubscriptionRegistry()
+                : new DefaultSubscriptionRegistry();
+
+        MessageChannel discard = (message, timeout) -> true;
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), discard,
+                new ExecutorSubscribableChannel(), List.of("/topic", "/queue"));
+        broker.setSubscriptionRegistry(subscriptionRegistry);
+        broker.start();
+
+        byte[] payload = "[{\"text\":\"Hey, are we still on for lunch tomorrow at noon?\"}]"
+                .getBytes(StandardCharsets.UTF_8);
+        sends = new Message<?>[subscriptions];
+        for (int i = 0; i < subscriptions; i++) {
+            String destination = "/queue/messages/" + UUID.randomUUID();
+
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("session-" + i);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination(destination);
+            subscriptionRegistry.registerSubscription(
+                    MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+
+            SimpMessageHeaderAccessor send = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            send.setDestination(destination);
+            send.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            sends[i] = MessageBuilder.createMessage(payload, send.getMessageHeaders());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public void sendToUserQueue() {
+        // Rotate over all destinations so the default registry's lookup cache is exercised realistically
+        broker.handleMessage(sends[next]);
+        next = next + 1 == sends.length ? 0 : next + 1;
+    }
+}
@@ -0,0 +1,166 @@
+package com.chatty.benchmark;
+
+import com.chatty.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Bandwidth vs CPU of the WebSocket compression policy, on the STOMP MESSAGE frames a session
+ * receives for live direct messages.
+ * <p>
+ * One operation sends one WebSocket message carrying {@code coalesce} frames (1 = no coalescing),
+ * compressed the way permessage-deflate does it: raw deflate, sync flush, with the window kept
+ * between messages (context takeover) or reset for each one. The {@code bytesPerFrame} secondary
+ * result is the wire payload per STOMP frame; divide the time by {@code coalesce} for CPU per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final String[] WORDS = {"hey", "are", "we", "still", "on", "for", "lunch", "tomorrow",
+            "at", "noon", "sure", "see", "you", "there", "running", "late", "ten", "minutes", "ok", "thanks",
+            "did", "you", "get", "the", "file", "yes", "looks", "good", "call", "me", "later", "tonight"};
+
+    private static final int DISTINCT_MESSAGES = 256;
+
+    @Param({"none", "context-takeover", "no-context-takeover"})
+    private String compression;
+
+    @Param({"1", "8"})
+    private int coalesce;
+
+    private byte[][] messages;
+
+    private int next;
+
+    private Deflater deflater;
+
+    private byte[] out;
+
+    /**
+     * Wire bytes per frame, averaged over the iteration
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+
+        public double bytesPerFrame;
+
+        private long bytes;
+
+        private long frames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerFrame = 0;
+            bytes = 0;
+            frames = 0;
+        }
+
+        void add(int messageBytes, int messageFrames) {
+            bytes += messageBytes;
+            frames += messageFrames;
+            bytesPerFrame = (double) bytes / frames;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        StompEncoder encoder = new StompEncoder();
+        Random random = new Random(42);
+        UUID receiver = UUID.randomUUID();
+        UUID[] senders = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+
+        byte[][] frames = new byte[DISTINCT_MESSAGES * coalesce][];
+        for (int i = 0; i < frames.length; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 3 + random.nextInt(12); w > 0; w--) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Message message = Message.builder()
+                    .id(UUID.randomUUID())
+                    .sender(senders[random.nextInt(senders.length)])
+                    .receiver(receiver)
+                    .createdAt(System.currentTimeMillis() + i)
+                    .text(text.toString().trim())
+                    .build();
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            accessor.setDestination("/queue/messages/" + receiver);
+            accessor.setSubscriptionId("0");
+            accessor.setMessageId(UUID.randomUUID().toString());
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            frames[i] = encoder.encode(accessor.getMessageHeaders(), objectMapper.writeValueAsBytes(List.of(message)));
+        }
+
+        messages = new byte[DISTINCT_MESSAGES][];
+        int largest = 0;
+        for (int i = 0; i < DISTINCT_MESSAGES; i++) {
+            ByteArrayOutputStream joined = new ByteArrayOutputStream();
+            for (int f = 0; f < coalesce; f++) {
+                joined.write(frames[i * coalesce + f]);
+            }
+            messages[i] = joined.toByteArray();
+            largest = Math.max(largest, messages[i].length);
+        }
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        out = new byte[largest * 2 + 64];
+    }
+
+    @TearDown
+    public void tearDown() {
+        deflater.end();
+    }
+
+    @Benchmark
+    public int send(Size size) {
+        byte[] message = messages[next];
+        next = (next + 1) % DISTINCT_MESSAGES;
+        int bytes = switch (compression) {
+            case "context-takeover" -> deflate(message);
+            case "no-context-takeover" -> {
+                deflater.reset();
+                yield deflate(message);
+            }
+            default -> message.length;
+        };
+        size.add(bytes, coalesce);
+        return bytes;
+    }
+
+    private int deflate(byte[] message) {
+        deflater.setInput(message);
+        int length = deflater.deflate(out, 0, out.length, Deflater.SYNC_FLUSH);
+        // permessage-deflate drops the 00 00 ff ff tail of the sync flush
+        return length - 4;
+    }
+}
@@ -0,0 +1,112 @@
+package com.chatty.benchmark;
+
+import com.chatty.entity.Contact;
+import com.chatty.entity.ContactRequest;
+import com.chatty.repository.ContactRepository;
+import com.chatty.repository.ContactRequestRepository;
+import com.chatty.service.ContactService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepting N pending contact requests sent to one user, against an H2 dataset:
+ * one request at a time the way ContactService used to (lookup, delete and two IDENTITY inserts,
+ * each in its own transaction) vs ContactService.acceptFriendRequests (one transaction, three
+ * statements per chunk). Requests per second = requests / score.
+ * <p>
+ * In-memory H2 has no network round trip, so against PostgreSQL the gap is wider than reported here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactAcceptBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int requests;
+
+    private ConfigurableApplicationContext context;
+
+    private ContactService contactService;
+
+    private ContactRepository contactRepository;
+
+    private ContactRequestRepository contactRequestRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID recipient;
+
+    private List<UUID> requesters;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start("accept" + requests);
+        contactService = context.getBean(ContactService.class);
+        contactRepository = context.getBean(ContactRepository.class);
+        contactRequestRepository = context.getBean(ContactRequestRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Fresh pending requests for every invocation (not measured)
+     */
+    @Setup(Level.Invocation)
+    public void seedRequests() {
+        contactRepository.deleteAllInBatch();
+        contactRequestRepository.deleteAllInBatch();
+        recipient = UUID.randomUUID();
+        requesters = new ArrayList<>(requests);
+        List<Object[]> rows = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            UUID requester = UUID.randomUUID();
+            requesters.add(requester);
+            rows.add(new Object[] {requester, recipient});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO public.contact_requests (requester, recipient, status, created_at, updated_at) "
+                + "VALUES (?, ?, 'PENDING', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int oneAtATime() {
+        int accepted = 0;
+        for (UUID requester : requesters) {
+            ContactRequest request = contactRequestRepository.findByRequesterAndRecipient(requester, recipient);
+            contactRequestRepository.delete(request);
+            contactRepository.save(Contact.builder().initiator(recipient).target(requester).build());
+            contactRepository.save(Contact.builder().initiator(requester).target(recipient).build());
+            accepted++;
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public int batched() {
+        return contactService.acceptFriendRequests(recipient, requesters).size();
+    }
+}
@@ -0,0 +1,110 @@
+package com.chatty.benchmark;
+
+import com.chatty.dto.ContactDTO;
+import com.chatty.entity.Contact;
+import com.chatty.entity.ContactRequest;
+import com.chatty.entity.User;
+import com.chatty.enums.ContactRequestStatus;
+import com.chatty.repository.ContactRepository;
+import com.chatty.repository.ContactRequestRepository;
+import com.chatty.repository.UserRepository;
+import com.chatty.service.ContactService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contact list with user details for one user holding N contacts and a pending request
+ * (contact_requests is keyed by requester, so a user has at most one),
+ * against an H2 dataset: the full ContactService call (two queries plus enrichment) and the
+ * enrichment step alone on already loaded contacts. The user profile cache is warm after the
+ * first invocation, as it is in steady state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactEnrichmentBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int contacts;
+
+    private ConfigurableApplicationContext context;
+
+    private ContactService contactService;
+
+    private UUID owner;
+
+    private List<Contact> loadedContacts;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start("contacts" + contacts);
+        contactService = context.getBean(ContactService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ContactRepository contactRepository = context.getBean(ContactRepository.class);
+        ContactRequestRepository contactRequestRepository = context.getBean(ContactRequestRepository.class);
+
+        owner = userRepository.save(user(0)).getId();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= contacts + 1; i++) {
+            users.add(user(i));
+        }
+        users = userRepository.saveAll(users);
+
+        List<Contact> ownerContacts = new ArrayList<>();
+        for (int i = 0; i < contacts; i++) {
+            ownerContacts.add(Contact.builder().initiator(owner).target(users.get(i).getId()).build());
+        }
+        contactRepository.saveAll(ownerContacts);
+        contactRequestRepository.save(ContactRequest.builder()
+                .requester(owner)
+                .recipient(users.get(contacts).getId())
+                .status(ContactRequestStatus.PENDING)
+                .build());
+
+        loadedContacts = contactRepository.findByInitiator(owner);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ContactDTO> contactsForUser() {
+        return contactService.getAllContactsForUserWithDetails(owner);
+    }
+
+    @Benchmark
+    public List<ContactDTO> enrichLoadedContacts() {
+        return contactService.enrichContacts(loadedContacts);
+    }
+
+    private static User user(int i) {
+        return User.builder()
+                .username("user" + i)
+                .email("user" + i + "@example.com")
+                .status("Available")
+                .displayName("User " + i)
+                .build();
+    }
+}
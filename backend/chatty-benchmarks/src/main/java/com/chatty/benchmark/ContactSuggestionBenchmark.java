@@ -0,0 +1,79 @@
+package com.chatty.benchmark;
+
+import com.chatty.service.MutualContactIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend suggestions and mutual counts on a synthetic contact graph with users * degree / 2
+ * undirected contacts (2 directed rows each, so 100k users at degree 40 is 4M contact rows).
+ * Users sit in communities of 1000 and 80% of their contacts are inside their community, so
+ * friends of friends overlap as they do in real graphs. Each call picks a random user, uncached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ContactSuggestionBenchmark {
+
+    private static final int COMMUNITY = 1000;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"20", "40"})
+    private int degree;
+
+    @Param({"10"})
+    private int limit;
+
+    private MutualContactIndex index;
+
+    private UUID[] ids;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ids = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        index = new MutualContactIndex();
+        long edges = (long) users * degree / 2;
+        for (long e = 0; e < edges; e++) {
+            int a = random.nextInt(users);
+            int b = random.nextDouble() < 0.8
+                    ? (a / COMMUNITY) * COMMUNITY + random.nextInt(Math.min(COMMUNITY, users))
+                    : random.nextInt(users);
+            index.addEdge(ids[a], ids[Math.min(b, users - 1)]);
+        }
+    }
+
+    @Benchmark
+    public List<MutualContactIndex.Suggestion> suggest() {
+        return index.suggest(ids[ThreadLocalRandom.current().nextInt(users)], limit);
+    }
+
+    @Benchmark
+    public int mutualCount() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.mutualCount(ids[random.nextInt(users)], ids[random.nextInt(users)]);
+    }
+}
@@ -0,0 +1,110 @@
+package com.chatty.benchmark;
+
+import com.chatty.entity.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of fanning one saved message out to N user queues:
+ * convertAndSend per destination (serializes N times) versus serializing once
+ * and sending the same byte[] to every destination, as ClusterRouter does.
+ * <p>
+ * Run with the GC profiler to see allocation per operation:
+ * <pre>
+ * java -jar target/benchmarks.jar FanOutEncodingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutEncodingBenchmark {
+
+    @Param({"2", "10", "100"})
+    private int destinations;
+
+    private ObjectMapper objectMapper;
+
+    private SimpMessagingTemplate template;
+
+    private List<Message> payload;
+
+    private String[] queues;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+
+        // Broker-less channel: measures conversion and message construction only
+        MessageChannel channel = (message, timeout) -> true;
+        template = new SimpMessagingTemplate(channel);
+        template.setMessageConverter(converter);
+
+        payload = List.of(Message.builder()
+                .id(UUID.randomUUID())
+                .sender(UUID.randomUUID())
+                .receiver(UUID.randomUUID())
+                .createdAt(System.currentTimeMillis())
+                .text("Hey, are we still on for lunch tomorrow at noon?")
+                .build());
+
+        queues = new String[destinations];
+        for (int i = 0; i < destinations; i++) {
+            queues[i] = "/queue/messages/" + UUID.randomUUID();
+        }
+    }
+
+    @Benchmark
+    public void convertPerDestination() {
+        for (String queue : queues) {
+            template.convertAndSend(queue, payload);
+        }
+    }
+
+    @Benchmark
+    public void encodeOnce(Blackhole blackhole) throws Exception {
+        byte[] encoded = objectMapper.writeValueAsBytes(payload);
+        for (String queue : queues) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setLeaveMutable(true);
+            template.send(queue, MessageBuilder.createMessage(encoded, accessor.getMessageHeaders()));
+        }
+        blackhole.consume(encoded);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(FanOutEncodingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
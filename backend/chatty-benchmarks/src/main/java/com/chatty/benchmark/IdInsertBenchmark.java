@@ -0,0 +1,79 @@
+package com.chatty.benchmark;
+
+import com.chatty.id.IdGenerator;
+import com.chatty.id.RandomUuidGenerator;
+import com.chatty.id.UuidV7Generator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Compares insert throughput into a UUID-keyed table for random (v4) and time-ordered (v7) ids.
+ * Uses a file-backed H2 database with a small page cache so the primary-key index outgrows memory.
+ * <p>
+ * Not a JMH benchmark (it measures throughput over a growing table); run it from the benchmarks jar:
+ * <pre>
+ * java -cp target/benchmarks.jar com.chatty.benchmark.IdInsertBenchmark 2000000
+ * </pre>
+ */
+public class IdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int REPORT_EVERY = 250_000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        run("random (v4)", new RandomUuidGenerator(), rows);
+        run("uuidv7", new UuidV7Generator(), rows);
+    }
+
+    private static void run(String name, IdGenerator generator, int rows) throws Exception {
+        Path dir = Files.createTempDirectory("id-bench");
+        String url = "jdbc:h2:file:" + dir.resolve("bench") + ";CACHE_SIZE=8192";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE messages (id UUID PRIMARY KEY, sender UUID NOT NULL, "
+                        + "created_at BIGINT, text VARCHAR(255))");
+            }
+
+            UUID sender = UUID.randomUUID();
+            long start = System.nanoTime();
+            long windowStart = start;
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO messages (id, sender, created_at, text) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= rows; i++) {
+                    insert.setObject(1, generator.nextId());
+                    insert.setObject(2, sender);
+                    insert.setLong(3, System.currentTimeMillis());
+                    insert.setString(4, "benchmark message " + i);
+                    insert.addBatch();
+                    if (i % BATCH_SIZE == 0) {
+                        flush(connection, insert);
+                    }
+                    if (i % REPORT_EVERY == 0) {
+                        long now = System.nanoTime();
+                        System.out.printf("%-12s rows=%,d  window=%,.0f rows/s%n",
+                                name, i, REPORT_EVERY / ((now - windowStart) / 1e9));
+                        windowStart = now;
+                    }
+                }
+                flush(connection, insert);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-12s total=%,d rows in %.1fs  (%,.0f rows/s)%n%n", name, rows, seconds, rows / seconds);
+        }
+    }
+
+    private static void flush(Connection connection, PreparedStatement insert) throws SQLException {
+        insert.executeBatch();
+        connection.commit();
+    }
+}
@@ -0,0 +1,103 @@
+package com.chatty.benchmark;
+
+import com.chatty.dto.MessageWSDTO;
+import com.chatty.entity.Message;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON codec cost on the messaging hot path:
+ * decoding an inbound {@link MessageWSDTO} the way @MessageMapping does, and encoding/decoding
+ * the {@code List<Message>} payload delivered to /queue/messages/{userId} (1 message for a live
+ * send, larger batches for offline replay).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    private ObjectMapper objectMapper;
+
+    private MappingJackson2MessageConverter converter;
+
+    private JavaType messageListType;
+
+    private List<Message> messages;
+
+    private byte[] encodedMessages;
+
+    private org.springframework.messaging.Message<byte[]> inboundFrame;
+
+    @Setup
+    public void setup() throws Exception {
+        // Same defaults as the ObjectMapper Spring Boot configures
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        messageListType = objectMapper.getTypeFactory().constructCollectionType(List.class, Message.class);
+
+        UUID sender = UUID.randomUUID();
+        UUID receiver = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        messages = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            messages.add(Message.builder()
+                    .id(UUID.randomUUID())
+                    .sender(sender)
+                    .receiver(receiver)
+                    .createdAt(now + i)
+                    .text("Hey, are we still on for lunch tomorrow at noon? #" + i)
+                    .build());
+        }
+        encodedMessages = objectMapper.writeValueAsBytes(messages);
+
+        byte[] inbound = objectMapper.writeValueAsBytes(
+                new MessageWSDTO(sender, receiver, "Hey, are we still on for lunch tomorrow at noon?"));
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        inboundFrame = MessageBuilder.createMessage(inbound, accessor.getMessageHeaders());
+    }
+
+    @Benchmark
+    public Object decodeInboundDto() {
+        return converter.fromMessage(inboundFrame, MessageWSDTO.class);
+    }
+
+    @Benchmark
+    public byte[] encodeMessages() throws Exception {
+        return objectMapper.writeValueAsBytes(messages);
+    }
+
+    @Benchmark
+    public List<Message> decodeMessages() throws Exception {
+        return objectMapper.readValue(encodedMessages, messageListType);
+    }
+}
@@ -0,0 +1,134 @@
+package com.chatty.benchmark;
+
+import com.chatty.jdbc.ConcurrencyLimitingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform thread pool vs virtual threads for blocking request handling, the two modes selected by
+ * spring.threads.virtual.enabled. Each operation is a burst of concurrent requests; a request waits on
+ * simulated network I/O, then runs a query on a 10-connection Hikari pool while holding the connection
+ * for a simulated round trip.
+ * <p>
+ * platform: 200 threads (Tomcat's default max) straight onto the pool.
+ * virtual: one virtual thread per request, JDBC behind the same ConcurrencyLimitingDataSource the
+ * backend installs in virtual-thread mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadModeBenchmark {
+
+    private static final int POOL_SIZE = 10;
+
+    private static final int PLATFORM_THREADS = 200;
+
+    private static final int ROWS = 1000;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"2000"})
+    public int requests;
+
+    // Simulated wait outside the database per request (upstream call, socket write)
+    @Param({"5"})
+    public int ioMillis;
+
+    // Simulated database round trip while the connection is held
+    @Param({"1"})
+    public int queryMillis;
+
+    private HikariDataSource pool;
+
+    private DataSource dataSource;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:threadmode;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        pool = new HikariDataSource(config);
+
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS users (id INT PRIMARY KEY, username VARCHAR(64))");
+            statement.execute("DELETE FROM users");
+            for (int i = 0; i < ROWS; i++) {
+                statement.execute("INSERT INTO users VALUES (" + i + ", 'user" + i + "')");
+            }
+        }
+
+        if ("virtual".equals(mode)) {
+            dataSource = new ConcurrencyLimitingDataSource(pool, POOL_SIZE, pool.getConnectionTimeout());
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            dataSource = pool;
+            executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        pool.close();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<Integer>> results = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(this::handleRequest));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        return total;
+    }
+
+    private int handleRequest() throws Exception {
+        Thread.sleep(ioMillis);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement query = connection.prepareStatement("SELECT username FROM users WHERE id = ?")) {
+            query.setInt(1, ThreadLocalRandom.current().nextInt(ROWS));
+            try (ResultSet rows = query.executeQuery()) {
+                Thread.sleep(queryMillis);
+                return rows.next() ? rows.getString(1).length() : 0;
+            }
+        }
+    }
+}
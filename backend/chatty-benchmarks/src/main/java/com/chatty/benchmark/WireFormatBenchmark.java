@@ -0,0 +1,110 @@
+package com.chatty.benchmark;
+
+import com.chatty.entity.Message;
+import com.chatty.wire.CompactMessageCodec;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON vs {@link CompactMessageCodec} for the {@code List<Message>} batches delivered to
+ * /queue/messages/{userId}: encode and decode time per batch, and encoded size reported as the
+ * {@code bytesPerMessage} secondary result of the encode benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int batchSize;
+
+    private ObjectMapper objectMapper;
+
+    private JavaType messageListType;
+
+    private List<Message> messages;
+
+    private byte[] json;
+
+    private byte[] compact;
+
+    /**
+     * Encoded size of the last batch, reported alongside the timing
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+
+        public double bytesPerMessage;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        messageListType = objectMapper.getTypeFactory().constructCollectionType(List.class, Message.class);
+
+        UUID sender = UUID.randomUUID();
+        UUID receiver = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        messages = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            messages.add(Message.builder()
+                    .id(UUID.randomUUID())
+                    .sender(sender)
+                    .receiver(receiver)
+                    .createdAt(now + i)
+                    .text("Hey, are we still on for lunch tomorrow at noon? #" + i)
+                    .isDeleted(false)
+                    .build());
+        }
+        json = objectMapper.writeValueAsBytes(messages);
+        compact = CompactMessageCodec.encode(messages);
+        System.out.printf("%nbatch %d: json %d bytes, compact %d bytes (%.0f%%)%n", batchSize, json.length,
+                compact.length, 100.0 * compact.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson(Size size) throws Exception {
+        byte[] encoded = objectMapper.writeValueAsBytes(messages);
+        size.bytesPerMessage = (double) encoded.length / batchSize;
+        return encoded;
+    }
+
+    @Benchmark
+    public byte[] encodeCompact(Size size) {
+        byte[] encoded = CompactMessageCodec.encode(messages);
+        size.bytesPerMessage = (double) encoded.length / batchSize;
+        return encoded;
+    }
+
+    @Benchmark
+    public List<Message> decodeJson() throws Exception {
+        return objectMapper.readValue(json, messageListType);
+    }
+
+    @Benchmark
+    public List<Message> decodeCompact() {
+        return CompactMessageCodec.decode(compact);
+    }
+}
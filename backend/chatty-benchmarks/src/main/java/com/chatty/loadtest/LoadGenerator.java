@@ -0,0 +1,408 @@
+package com.chatty.loadtest;
+
+import com.chatty.App;
+import com.chatty.entity.Message;
+import com.chatty.wire.CompactMessageCodec;
+import com.chatty.wire.WireEncodingInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * End-to-end WebSocket load generator.
+ * <p>
+ * Opens N STOMP sessions on /ws, each subscribed to /queue/messages/{id} for its own random user,
+ * then sends /app/messages/send/{sender}/{receiver} between random pairs at a fixed rate and
+ * records send-to-receive latency in an HdrHistogram. Latency is measured from the intended send
+ * time of each message, so a stalled sender does not hide queueing delay (coordinated omission).
+ * <p>
+ * By default an embedded instance backed by in-memory H2 is started in this JVM; pass
+ * --target=ws://host:port/ws to load a running instance instead. Options:
+ * <pre>
+ * --clients=1000             STOMP sessions to open
+ * --rate=500                 messages per second, across all clients
+ * --duration=60              measured seconds
+ * --warmup=10                seconds sent but not recorded
+ * --connect-concurrency=100  connection handshakes in flight
+ * --target=ws://...          external instance (default: embedded)
+ * --virtual-threads=true     embedded instance on virtual threads (default: false)
+ * --trace-pinned=true        print the stack of virtual threads blocking while pinned to their carrier
+ * --encoding=compact         ask for the compact binary message format (default: json)
+ * --compression=transport    offer permessage-deflate; "payload" asks for chatty-compression: deflate
+ *                            instead (default: none)
+ * --chatty.x.y=value         passed to the embedded instance, e.g. --chatty.websocket.coalesce.window-ms=5
+ * </pre>
+ * The report includes process CPU time per received message. With the embedded instance that is
+ * server and generator together, so compare runs against each other rather than in absolute terms.
+ */
+public class LoadGenerator {
+
+    private static final String PAYLOAD_PREFIX = "lt:";
+
+    private final Map<String, String> options;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong received = new AtomicLong();
+
+    private final AtomicLong sendErrors = new AtomicLong();
+
+    private final AtomicLong receivedBytes = new AtomicLong();
+
+    private final StompHeaders connectHeaders = new StompHeaders();
+
+    private final WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+
+    public LoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new LoadGenerator(options).run();
+    }
+
+    private void run() throws Exception {
+        int clientCount = intOption("clients", 1000);
+        int rate = intOption("rate", 500);
+        int duration = intOption("duration", 60);
+        int warmup = intOption("warmup", 10);
+        int connectConcurrency = intOption("connect-concurrency", 100);
+        if ("compact".equals(options.get("encoding"))) {
+            connectHeaders.set(WireEncodingInterceptor.ENCODING_HEADER, WireEncodingInterceptor.COMPACT);
+        }
+        String compression = options.getOrDefault("compression", "none");
+        if ("transport".equals(compression)) {
+            handshakeHeaders.setSecWebSocketExtensions(List.of(new WebSocketExtension("permessage-deflate")));
+        } else if ("payload".equals(compression)) {
+            connectHeaders.set(WireEncodingInterceptor.COMPRESSION_HEADER, WireEncodingInterceptor.DEFLATE);
+        }
+
+        ConfigurableApplicationContext embedded = null;
+        String target = options.get("target");
+        if (target == null) {
+            embedded = startEmbedded();
+            int port = ((WebServerApplicationContext) embedded).getWebServer().getPort();
+            target = "ws://localhost:" + port + "/ws";
+        }
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        // Frames are handled as raw bytes in both directions; the JSON content type is kept on sends
+        stompClient.setMessageConverter(new ByteArrayMessageConverter() {
+            @Override
+            protected boolean supportsMimeType(MessageHeaders headers) {
+                return true;
+            }
+        });
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+
+        try {
+            connect(stompClient, target, clientCount, connectConcurrency);
+            // Let the broker register the subscriptions before the first send
+            Thread.sleep(1000);
+
+            System.out.printf("Sending %d msg/s for %ds warmup + %ds measured%n", rate, warmup, duration);
+            drive(rate, warmup, duration);
+        } finally {
+            for (Client client : clients) {
+                client.session().disconnect();
+            }
+            stompClient.stop();
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startEmbedded() {
+        if ("true".equals(options.get("trace-pinned"))) {
+            // Read when the first virtual thread is created
+            System.setProperty("jdk.tracePinnedThreads", "short");
+        }
+        System.out.println("Starting embedded instance on in-memory H2"
+                + ("true".equals(options.get("virtual-threads")) ? " (virtual threads)" : ""));
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                // Entities use schema "public" and the reserved table name "user"
+                "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                "--spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+                // PostgreSQL-only features: the GIN search index and the summary upsert
+                "--chatty.search.create-index=false",
+                "--chatty.inbox.summaries.enabled=false",
+                "--logging.level.com.chatty=WARN",
+                // Measure the pipeline, not the inbound send limits
+                "--chatty.ratelimit.enabled=false",
+                // Random sender/receiver pairs are not contacts
+                "--chatty.messages.require-contact=false",
+                "--spring.threads.virtual.enabled=" + options.getOrDefault("virtual-threads", "false")));
+        options.forEach((name, value) -> {
+            if (name.startsWith("chatty.")) {
+                // A repeated argument would be joined with a comma, so replace the default set above
+                args.removeIf(arg -> arg.startsWith("--" + name + "="));
+                args.add("--" + name + "=" + value);
+            }
+        });
+        return new SpringApplicationBuilder(App.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    private void connect(WebSocketStompClient stompClient, String target, int clientCount, int concurrency)
+            throws InterruptedException {
+        System.out.printf("Opening %d STOMP sessions on %s%n", clientCount, target);
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicLong failures = new AtomicLong();
+        long start = System.nanoTime();
+        for (int i = 0; i < clientCount; i++) {
+            UUID userId = UUID.randomUUID();
+            inFlight.acquire();
+            stompClient.connectAsync(target, handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {
+                @Override
+                public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+                    session.subscribe("/queue/messages/" + userId, new DeliveryHandler(userId));
+                    clients.add(new Client(userId, session));
+                }
+            }).whenComplete((session, error) -> {
+                if (error != null) {
+                    failures.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        System.out.printf("Connected %d sessions (%d failed) in %d ms%n", clients.size(), failures.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (clients.size() < 2) {
+            throw new IllegalStateException("Need at least two connected sessions");
+        }
+    }
+
+    private void drive(int rate, int warmup, int duration) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        long nextReport = start + TimeUnit.SECONDS.toNanos(1);
+        long intended = start;
+        boolean measuring = false;
+        Histogram total = null;
+        long sentAtMeasureStart = 0;
+        long receivedAtMeasureStart = 0;
+        long bytesAtMeasureStart = 0;
+        long cpuAtMeasureStart = 0;
+        long lastSent = 0;
+        long lastReceived = 0;
+
+        while (intended < end) {
+            long now = System.nanoTime();
+            if (now < intended) {
+                LockSupport.parkNanos(intended - now);
+                continue;
+            }
+            send(intended);
+            intended += interval;
+
+            if (now >= nextReport) {
+                Histogram interval1s = recorder.getIntervalHistogram();
+                if (!measuring && now >= measureFrom) {
+                    // Warmup over: start the run histogram and counters from here
+                    measuring = true;
+                    total = new Histogram(3);
+                    sentAtMeasureStart = sent.get();
+                    receivedAtMeasureStart = received.get();
+                    bytesAtMeasureStart = receivedBytes.get();
+                    cpuAtMeasureStart = processCpuNanos();
+                } else if (measuring) {
+                    total.add(interval1s);
+                }
+                long sentNow = sent.get();
+                long receivedNow = received.get();
+                System.out.printf("%s sent %6d/s  received %6d/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n",
+                        measuring ? "      " : "warmup", sentNow - lastSent, receivedNow - lastReceived,
+                        millis(interval1s.getValueAtPercentile(50)), millis(interval1s.getValueAtPercentile(99)),
+                        millis(interval1s.getMaxValue()));
+                lastSent = sentNow;
+                lastReceived = receivedNow;
+                nextReport += TimeUnit.SECONDS.toNanos(1);
+            }
+        }
+
+        // Allow in-flight messages to arrive before the final report
+        LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(2));
+        if (total == null) {
+            total = new Histogram(3);
+        }
+        total.add(recorder.getIntervalHistogram());
+        report(total, sent.get() - sentAtMeasureStart, received.get() - receivedAtMeasureStart,
+                receivedBytes.get() - bytesAtMeasureStart, processCpuNanos() - cpuAtMeasureStart, duration);
+    }
+
+    private void send(long intendedNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int senderIndex = random.nextInt(clients.size());
+        int receiverIndex = random.nextInt(clients.size() - 1);
+        if (receiverIndex >= senderIndex) {
+            receiverIndex++;
+        }
+        Client sender = clients.get(senderIndex);
+        UUID receiver = clients.get(receiverIndex).userId();
+
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination("/app/messages/send/" + sender.userId() + "/" + receiver);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        String body = "{\"sender\":\"" + sender.userId() + "\",\"receiver\":\"" + receiver
+                + "\",\"messageText\":\"" + PAYLOAD_PREFIX + intendedNanos + "\"}";
+        try {
+            sender.session().send(headers, body.getBytes(StandardCharsets.UTF_8));
+            sent.incrementAndGet();
+        } catch (RuntimeException e) {
+            sendErrors.incrementAndGet();
+        }
+    }
+
+    private void report(Histogram total, long sentCount, long receivedCount, long bytes, long cpuNanos,
+                        int duration) {
+        System.out.println();
+        System.out.printf("Sessions:    %d%n", clients.size());
+        System.out.printf("Sent:        %d (%.1f msg/s), %d send errors%n",
+                sentCount, (double) sentCount / duration, sendErrors.get());
+        System.out.printf("Received:    %d (%.1f msg/s)%n", receivedCount, (double) receivedCount / duration);
+        System.out.printf("Payload:     %d bytes (%.1f KB/s, %.1f bytes/msg, %s, compression %s)%n", bytes,
+                bytes / 1024.0 / duration, receivedCount > 0 ? (double) bytes / receivedCount : 0.0,
+                options.getOrDefault("encoding", "json"), options.getOrDefault("compression", "none"));
+        System.out.printf("CPU:         %.1f s (%.1f us/msg, whole process)%n", cpuNanos / 1e9,
+                receivedCount > 0 ? cpuNanos / 1e3 / receivedCount : 0.0);
+        System.out.println("Send-to-receive latency (ms):");
+        for (double percentile : new double[] {50, 90, 99, 99.9, 99.99}) {
+            System.out.printf("  p%-6s %10.2f%n", percentile, millis(total.getValueAtPercentile(percentile)));
+        }
+        System.out.printf("  max     %10.2f%n", millis(total.getMaxValue()));
+        System.out.println();
+        System.out.println("Full distribution (microseconds):");
+        total.outputPercentileDistribution(System.out, 1.0);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private record Client(UUID userId, StompSession session) {
+    }
+
+    /**
+     * Records the latency of deliveries addressed to this client's user (the sender's echo is ignored)
+     */
+    private class DeliveryHandler implements StompFrameHandler {
+
+        private final String userId;
+
+        DeliveryHandler(UUID userId) {
+            this.userId = userId.toString();
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long now = System.nanoTime();
+            byte[] bytes = (byte[]) payload;
+            try {
+                // Bytes as received: deflated payloads count compressed, permessage-deflate is undone by the client
+                String compression = headers.getFirst(WireEncodingInterceptor.COMPRESSION_HEADER);
+                byte[] body = WireEncodingInterceptor.DEFLATE.equals(compression) ? inflate(bytes) : bytes;
+                if (WireEncodingInterceptor.COMPACT.equals(headers.getFirst(WireEncodingInterceptor.ENCODING_HEADER))) {
+                    for (Message message : CompactMessageCodec.decode(body)) {
+                        record(now, String.valueOf(message.getReceiver()), message.getText(), bytes.length);
+                    }
+                } else {
+                    for (JsonNode message : objectMapper.readTree(body)) {
+                        record(now, message.path("receiver").asText(), message.path("text").asText(""), bytes.length);
+                    }
+                }
+            } catch (Exception e) {
+                // Not a message batch (or not ours), ignore
+            }
+        }
+
+        private byte[] inflate(byte[] bytes) throws IOException {
+            try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+                return in.readAllBytes();
+            }
+        }
+
+        private void record(long now, String receiver, String text, int frameBytes) {
+            if (userId.equals(receiver) && text != null && text.startsWith(PAYLOAD_PREFIX)) {
+                long intended = Long.parseLong(text.substring(PAYLOAD_PREFIX.length()));
+                recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(now - intended)));
+                received.incrementAndGet();
+                receivedBytes.addAndGet(frameBytes);
+            }
+        }
+    }
+}
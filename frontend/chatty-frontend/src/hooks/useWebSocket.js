@@ -8,16 +8,54 @@ import { WS_SOCKJS_URL } from '../config'
  * @param {Object} options - Hook options
  * @param {string} options.userId - The current user's ID for subscription
  * @param {function} options.onMessage - Callback when a message is received
+ * @param {function} options.onReceipt - Callback when a delivered/read receipt is received
+ * @param {function} options.onRejected - Callback when the server did not accept a sent message
  * @param {function} options.onConnect - Callback when connection is established
  * @param {function} options.onDisconnect - Callback when disconnected
  * @param {function} options.onError - Callback when an error occurs
  */
-export function useWebSocket({ userId, onMessage, onConnect, onDisconnect, onError }) {
+export function useWebSocket({ userId, onMessage, onReceipt, onRejected, onConnect, onDisconnect, onError }) {
   const clientRef = useRef(null)
   const subscriptionRef = useRef(null)
+  const receiptSubscriptionRef = useRef(null)
+  const errorSubscriptionRef = useRef(null)
   const [isConnected, setIsConnected] = useState(false)
   const [connectionError, setConnectionError] = useState(null)
 
+  // Tell the server the newest message received, so a reconnect only replays what was missed
+  const acknowledge = (client, messages) => {
+    const received = Array.isArray(messages)
+      ? messages.filter((m) => m.receiver === userId && m.createdAt && m.id)
+      : []
+    if (received.length === 0) {
+      return
+    }
+    const latest = received.reduce((a, b) => (b.createdAt >= a.createdAt ? b : a))
+    client.publish({
+      destination: `/app/messages/ack/${userId}`,
+      body: JSON.stringify({ createdAt: latest.createdAt, id: latest.id })
+    })
+
+    // Delivered receipt per sender, for the newest message from each
+    const latestBySender = {}
+    for (const m of received) {
+      if (!latestBySender[m.sender] || m.createdAt >= latestBySender[m.sender].createdAt) {
+        latestBySender[m.sender] = m
+      }
+    }
+    for (const m of Object.values(latestBySender)) {
+      publishReceipt(client, m.sender, 'DELIVERED', m)
+    }
+  }
+
+  // The server coalesces receipts per conversation, so sending one per message is cheap
+  const publishReceipt = (client, peerId, type, message) => {
+    client.publish({
+      destination: `/app/messages/receipt/${userId}/${peerId}`,
+      body: JSON.stringify({ type, createdAt: message.createdAt, id: message.id })
+    })
+  }
+
   const connect = useCallback(() => {
     if (clientRef.current?.active) {
       console.log('WebSocket already connected')
@@ -49,10 +87,27 @@ export function useWebSocket({ userId, onMessage, onConnect, onDisconnect, onErr
             try {
               const parsedMessages = JSON.parse(message.body)
               onMessage?.(parsedMessages)
+              acknowledge(client, parsedMessages)
             } catch (e) {
               console.error('Failed to parse message:', e)
             }
           })
+
+          receiptSubscriptionRef.current = client.subscribe(`/queue/receipts/${userId}`, (message) => {
+            try {
+              onReceipt?.(JSON.parse(message.body))
+            } catch (e) {
+              console.error('Failed to parse receipt:', e)
+            }
+          })
+
+          errorSubscriptionRef.current = client.subscribe(`/queue/errors/${userId}`, (message) => {
+            try {
+              onRejected?.(JSON.parse(message.body))
+            } catch (e) {
+              console.error('Failed to parse rejection:', e)
+            }
+          })
         }
         
         onConnect?.()
@@ -76,7 +131,7 @@ export function useWebSocket({ userId, onMessage, onConnect, onDisconnect, onErr
 
     clientRef.current = client
     client.activate()
-  }, [userId, onMessage, onConnect, onDisconnect, onError])
+  }, [userId, onMessage, onReceipt, onRejected, onConnect, onDisconnect, onError])
 
   const disconnect = useCallback(() => {
     if (subscriptionRef.current) {
@@ -84,6 +139,14 @@ export function useWebSocket({ userId, onMessage, onConnect, onDisconnect, onErr
       subscriptionRef.current.unsubscribe()
       subscriptionRef.current = null
     }
+    if (receiptSubscriptionRef.current) {
+      receiptSubscriptionRef.current.unsubscribe()
+      receiptSubscriptionRef.current = null
+    }
+    if (errorSubscriptionRef.current) {
+      errorSubscriptionRef.current.unsubscribe()
+      errorSubscriptionRef.current = null
+    }
     
     if (clientRef.current?.active) {
       console.log('Deactivating WebSocket client')
@@ -115,6 +178,14 @@ export function useWebSocket({ userId, onMessage, onConnect, onDisconnect, onErr
     return true
   }, [])
 
+  const sendReceipt = useCallback((peerId, type, message) => {
+    if (!clientRef.current?.active || !message?.createdAt || !message?.id) {
+      return false
+    }
+    publishReceipt(clientRef.current, peerId, type, message)
+    return true
+  }, [userId])
+
   // Cleanup on unmount
   useEffect(() => {
     return () => {
@@ -126,6 +197,7 @@ export function useWebSocket({ userId, onMessage, onConnect, onDisconnect, onErr
     connect,
     disconnect,
     sendMessage,
+    sendReceipt,
     isConnected,
     connectionError
   }
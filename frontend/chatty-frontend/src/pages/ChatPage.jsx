@@ -25,8 +25,10 @@ function ChatPage() {
   const [loading, setLoading] = useState(true)
   const [error, setError] = useState(null)
   const [newMessage, setNewMessage] = useState('')
+  const [peerReceipt, setPeerReceipt] = useState({ deliveredAt: 0, readAt: 0 })
   const messagesEndRef = useRef(null)
   const wsConnectedRef = useRef(false)
+  const lastReadSentRef = useRef(0)
 
   const currentUser = location.state?.currentUser
   const otherUser = location.state?.otherUser
@@ -67,16 +69,47 @@ function ChatPage() {
     })
   }, [])
 
+  // Receipts only move forward; a null watermark means it did not change
+  const handleReceipt = useCallback((receipt) => {
+    if (receipt.reader !== otherUser?.id) {
+      return
+    }
+    setPeerReceipt(prev => ({
+      deliveredAt: Math.max(prev.deliveredAt, receipt.delivered?.createdAt || 0),
+      readAt: Math.max(prev.readAt, receipt.read?.createdAt || 0)
+    }))
+  }, [otherUser?.id])
+
+  // The server did not accept a sent message: mark the oldest matching pending message as failed
+  const handleRejected = useCallback((rejection) => {
+    setMessages(prev => {
+      const index = prev.findIndex(m =>
+        m.pending &&
+        m.receiver === rejection.receiver &&
+        m.text === rejection.messageText
+      )
+      if (index === -1) {
+        return prev
+      }
+      const updated = [...prev]
+      updated[index] = { ...updated[index], pending: false, failed: true, failureReason: rejection.reason }
+      return updated
+    })
+  }, [])
+
   // Initialize WebSocket connection
   const {
     connect: wsConnect,
     disconnect: wsDisconnect,
     sendMessage: wsSendMessage,
+    sendReceipt,
     isConnected,
     connectionError
   } = useWebSocket({
     userId: currentUser?.id,
     onMessage: handleWebSocketMessage,
+    onReceipt: handleReceipt,
+    onRejected: handleRejected,
     onConnect: () => {
       console.log('Chat WebSocket connected')
       wsConnectedRef.current = true
@@ -108,6 +141,17 @@ function ChatPage() {
     scrollToBottom()
   }, [messages])
 
+  // The conversation is on screen: mark the newest message from the other user as read
+  useEffect(() => {
+    if (!isConnected || !otherUser) return
+    const latest = messages
+      .filter(m => m.sender === otherUser.id && !m.pending && m.createdAt)
+      .reduce((a, b) => (!a || b.createdAt >= a.createdAt ? b : a), null)
+    if (latest && latest.createdAt > lastReadSentRef.current && sendReceipt(otherUser.id, 'READ', latest)) {
+      lastReadSentRef.current = latest.createdAt
+    }
+  }, [messages, isConnected, otherUser?.id])
+
   const scrollToBottom = () => {
     messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' })
   }
@@ -337,11 +381,21 @@ function ChatPage() {
                             sx={{ color: isFailed ? 'error.main' : 'text.secondary' }}
                           >
                             {isFailed
-                              ? 'Failed to send'
+                              ? message.failureReason === 'not_contact'
+                                ? 'Not sent: add this user as a contact first'
+                                : 'Failed to send'
                               : isPending
                                 ? 'Sending...'
                                 : formatTime(message.createdAt)}
                           </Typography>
+                          {isSender && !isPending && !isFailed && message.createdAt <= peerReceipt.deliveredAt && (
+                            <Typography
+                              variant="caption"
+                              sx={{ color: message.createdAt <= peerReceipt.readAt ? '#34b7f1' : 'text.secondary' }}
+                            >
+                              {message.createdAt <= peerReceipt.readAt ? '✓✓' : '✓'}
+                            </Typography>
+                          )}
                         </Box>
                       </Paper>
                     </Box>